@@ -0,0 +1,273 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adaptive sort that profiles the input and picks an algorithm for it.
+ * One pass measures the size, the value range and the number of natural
+ * runs; when an evenly spaced sample already spans too wide a range for
+ * Counting Sort, the pass stops once the runs are counted. For small
+ * inputs of a few hundred values, random pairs also estimate the
+ * fraction of inverted pairs and a small sample estimates how many
+ * values are duplicates; these are NaN in the log when the decision did
+ * not need them. The sort then goes to:
+ * - Insertion Sort for tiny inputs,
+ * - Tim Sort when the input is a single run (sorted or reversed),
+ * - Counting Sort when the value range is narrow: smaller than the size,
+ *   or for larger inputs small enough for CountingSort,
+ * - Tim Sort when the input is a handful of runs (organ pipe), or is
+ *   small and has few inverted pairs,
+ * - Three-Way Quick Sort or Quick Sort for other small inputs, with or
+ *   without many duplicates,
+ * - Radix Sort for all other larger inputs.
+ * The thresholds come from SortBenchmark runs with enough warmup for the
+ * JIT to compile every branch; with only a few warmup iterations the
+ * chosen sorters may still be interpreted and a fixed sorter can win.
+ * Every choice is kept in a bounded decision log with the profile that
+ * led to it.
+ * Time Complexity: O(n) profiling plus the chosen sort
+ * Space Complexity: O(n) when Radix Sort is chosen
+ */
+public class AdaptiveSorter implements Sorter {
+    // Inputs up to this size are sorted with Insertion Sort without profiling
+    private static final int TINY = 32;
+    
+    // Below this size the inversion and duplicate samples would cost as much as the sort
+    private static final int SAMPLED = 256;
+    
+    // Below this size Radix Sort's fixed cost per digit outweighs its linear time
+    private static final int RADIX_THRESHOLD = 512;
+    
+    // Inputs with at most this many runs are left to Tim Sort's merging
+    private static final int FEW_RUNS = 16;
+    
+    // Inputs with at most this fraction of inverted pairs count as nearly sorted
+    private static final double NEARLY_SORTED = 0.05;
+    
+    // Inputs with a smaller fraction of distinct values have many duplicates
+    private static final double MANY_DUPLICATES = 0.125;
+    
+    // Pairs checked for the inversion estimate, values sampled for duplicates and for the range
+    private static final int SAMPLES = 64;
+    
+    private static final int LOG_CAPACITY = 64;
+    
+    private final Sorter insertionSort = new InsertionSort();
+    private final Sorter timSort = new TimSort();
+    private final Sorter radixSort = new RadixSort();
+    private final Sorter countingSort = new CountingSort();
+    private final Sorter quickSort = new QuickSort();
+    private final Sorter threeWayQuickSort = new ThreeWayQuickSort();
+    
+    private final Deque<Decision> log = new ArrayDeque<>();
+    
+    /**
+     * Profile of one input and the algorithm chosen for it.
+     */
+    public static final class Decision {
+        public final int size;
+        public final int runs; // counted up to one past the few-runs threshold
+        public final double inversionRatio; // estimated fraction of pairs out of order, or NaN
+        public final double distinctRatio; // estimated fraction of distinct values, or NaN
+        public final int min; // of the values scanned
+        public final long range; // max - min, or a lower bound when a sample ruled out Counting Sort
+        public final String algorithm;
+        public final String reason;
+        final Sorter sorter;
+        
+        Decision(int size, int runs, double inversionRatio, double distinctRatio, int min, long range,
+                 Sorter sorter, String reason) {
+            this.size = size;
+            this.runs = runs;
+            this.inversionRatio = inversionRatio;
+            this.distinctRatio = distinctRatio;
+            this.min = min;
+            this.range = range;
+            this.algorithm = sorter.getName();
+            this.reason = reason;
+            this.sorter = sorter;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "n=%d runs=%d inversions=%.3f distinct=%.3f range=%d -> %s (%s)",
+                    size, runs, inversionRatio, distinctRatio, range, algorithm, reason);
+        }
+    }
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        Decision decision = decide(array);
+        synchronized (log) {
+            if (log.size() == LOG_CAPACITY) {
+                log.removeFirst();
+            }
+            log.addLast(decision);
+        }
+        
+        // Counting Sort would scan for the minimum and maximum again
+        if (decision.sorter == countingSort) {
+            CountingSort.countingSort(array, decision.min, (int) (decision.min + decision.range), v);
+            v.markAllSorted();
+        } else {
+            decision.sorter.sort(array, v);
+        }
+    }
+    
+    /**
+     * Returns the most recent decisions, oldest first.
+     */
+    public List<Decision> getDecisions() {
+        synchronized (log) {
+            return new ArrayList<>(log);
+        }
+    }
+    
+    /**
+     * Profiles the array and chooses an algorithm, without sorting it.
+     */
+    Decision decide(int[] array) {
+        int n = array.length;
+        if (n <= TINY) {
+            return new Decision(n, 0, Double.NaN, Double.NaN, 0, 0, insertionSort, "tiny input");
+        }
+        
+        // Walk the natural runs as Tim Sort finds them (non-descending or
+        // strictly descending), taking min and max from their ends. Runs
+        // are only counted until there are too many for Tim Sort.
+        int min = array[0];
+        int max = array[0];
+        int runs = 0;
+        int i = 0;
+        while (i < n && runs <= FEW_RUNS) {
+            int start = i++;
+            if (i < n && array[i] < array[i - 1]) {
+                while (i < n && array[i] < array[i - 1]) i++;
+                min = Math.min(min, array[i - 1]);
+                max = Math.max(max, array[start]);
+            } else {
+                while (i < n && array[i] >= array[i - 1]) i++;
+                min = Math.min(min, array[start]);
+                max = Math.max(max, array[i - 1]);
+            }
+            runs++;
+        }
+        
+        // Too many runs to reach the end: a sample whose range is already
+        // too wide for Counting Sort saves scanning the rest for min and max
+        if (i < n) {
+            for (int s = 0; s < SAMPLES; s++) {
+                int value = array[(int) ((long) s * n / SAMPLES)];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (narrow((long) max - min, n)) {
+                for (; i < n; i++) {
+                    min = Math.min(min, array[i]);
+                    max = Math.max(max, array[i]);
+                }
+            }
+        }
+        long range = (long) max - min;
+        double inversionRatio = Double.NaN;
+        double distinctRatio = Double.NaN;
+        
+        Sorter sorter;
+        String reason;
+        if (runs == 1) {
+            sorter = timSort;
+            reason = "one run";
+        } else if (narrow(range, n)) {
+            sorter = countingSort;
+            reason = "narrow range";
+        } else if (runs <= FEW_RUNS) {
+            sorter = timSort;
+            reason = "few runs";
+        } else if (n < SAMPLED) {
+            sorter = quickSort;
+            reason = "small";
+        } else if (n <= RADIX_THRESHOLD) {
+            inversionRatio = inversionRatio(array);
+            distinctRatio = distinctRatio(array);
+            if (inversionRatio <= NEARLY_SORTED) {
+                sorter = timSort;
+                reason = "small, nearly sorted";
+            } else if (distinctRatio < MANY_DUPLICATES) {
+                sorter = threeWayQuickSort;
+                reason = "small, many duplicates";
+            } else {
+                sorter = quickSort;
+                reason = "small, distinct";
+            }
+        } else {
+            sorter = radixSort;
+            reason = "large";
+        }
+        return new Decision(n, runs, inversionRatio, distinctRatio, min, range, sorter, reason);
+    }
+    
+    /**
+     * Returns true if counting n values beats sorting them: the range is
+     * smaller than n, or n is past Radix Sort's threshold and Counting
+     * Sort accepts the range. A wider range never passes where a narrower
+     * one fails, so a lower bound that fails rules out the real range.
+     */
+    private static boolean narrow(long range, int n) {
+        return range < n || (n > RADIX_THRESHOLD && CountingSort.fits(range + 1, n));
+    }
+    
+    /**
+     * Estimates the fraction of inverted pairs from random pairs.
+     */
+    private static double inversionRatio(int[] array) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int n = array.length;
+        int inverted = 0;
+        for (int s = 0; s < SAMPLES; s++) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n);
+            if (i < j ? array[i] > array[j] : array[j] > array[i]) {
+                inverted++;
+            }
+        }
+        return (double) inverted / SAMPLES;
+    }
+    
+    /**
+     * Estimates the fraction of distinct values from an evenly spaced sample.
+     */
+    private static double distinctRatio(int[] array) {
+        int n = array.length;
+        int[] sample = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sample[i] = array[(int) ((long) i * n / SAMPLES)];
+        }
+        QuickSort.insertionSort(sample, 0, SAMPLES - 1, NoOpObserver.INSTANCE);
+        int distinct = 1;
+        for (int i = 1; i < SAMPLES; i++) {
+            if (sample[i] != sample[i - 1]) {
+                distinct++;
+            }
+        }
+        return (double) distinct / SAMPLES;
+    }
+    
+    @Override
+    public String getName() {
+        return "Adaptive Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+}
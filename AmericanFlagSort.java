@@ -0,0 +1,120 @@
+/**
+ * American Flag Sort implementation (in-place MSD radix sort).
+ * Keys are permuted into 256 buckets by their most significant byte
+ * using cycles of swaps, so no buffer of size n is needed; each bucket is
+ * then sorted the same way by the next byte. Small buckets are finished
+ * with insertion sort. Use it instead of Radix Sort when memory is tight.
+ * Time Complexity: O(n)
+ * Space Complexity: O(1)
+ */
+public class AmericanFlagSort implements Sorter {
+    // Buckets this small are finished with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    
+    private static final int RADIX = RadixSort.RADIX;
+    private static final int RADIX_BITS = RadixSort.RADIX_BITS;
+    private static final int DIGITS = RadixSort.DIGITS;
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n > 1) {
+            // Bucket boundaries for each level of recursion, allocated once
+            int[] starts = new int[DIGITS * (RADIX + 1)];
+            int[] next = new int[DIGITS * RADIX];
+            americanFlagSort(array, 0, n, DIGITS - 1, starts, next, v);
+        }
+        v.markAllSorted();
+    }
+    
+    /**
+     * Sorts array[from, to) by the given digit and then the lower ones.
+     */
+    private void americanFlagSort(int[] array, int from, int to, int digit,
+                                  int[] starts, int[] next, SortObserver v) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            QuickSort.insertionSort(array, from, to - 1, v);
+            return;
+        }
+        
+        int shift = digit * RADIX_BITS;
+        int startBase = digit * (RADIX + 1);
+        int nextBase = digit * RADIX;
+        
+        // Count the keys of every bucket
+        for (int b = 0; b <= RADIX; b++) {
+            starts[startBase + b] = 0;
+        }
+        for (int i = from; i < to; i++) {
+            v.highlight(i, -1);
+            starts[startBase + digitOf(array[i], shift) + 1]++;
+        }
+        v.sleep();
+        
+        // All keys share this digit, go straight to the next one
+        if (starts[startBase + digitOf(array[from], shift) + 1] == to - from) {
+            if (digit > 0) {
+                americanFlagSort(array, from, to, digit - 1, starts, next, v);
+            }
+            return;
+        }
+        
+        // Turn counts into bucket boundaries
+        starts[startBase] = from;
+        for (int b = 1; b <= RADIX; b++) {
+            starts[startBase + b] += starts[startBase + b - 1];
+        }
+        for (int b = 0; b < RADIX; b++) {
+            next[nextBase + b] = starts[startBase + b];
+        }
+        
+        // Swap every key into its bucket, following cycles
+        for (int b = 0; b < RADIX; b++) {
+            int end = starts[startBase + b + 1];
+            while (next[nextBase + b] < end) {
+                int i = next[nextBase + b];
+                int d = digitOf(array[i], shift);
+                if (d == b) {
+                    next[nextBase + b]++;
+                } else {
+                    int j = next[nextBase + d]++;
+                    QuickSort.swap(array, i, j, v);
+                }
+            }
+        }
+        
+        // Sort each bucket by the next digit
+        if (digit > 0) {
+            for (int b = 0; b < RADIX; b++) {
+                int bucketFrom = starts[startBase + b];
+                int bucketTo = starts[startBase + b + 1];
+                if (bucketTo - bucketFrom > 1) {
+                    americanFlagSort(array, bucketFrom, bucketTo, digit - 1, starts, next, v);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the digit of a key at the given shift, with the sign bit
+     * flipped so negative keys come first.
+     */
+    private static int digitOf(int value, int shift) {
+        return ((value ^ RadixSort.SIGN_BIT) >>> shift) & (RADIX - 1);
+    }
+    
+    @Override
+    public String getName() {
+        return "American Flag Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(1)";
+    }
+}
@@ -6,7 +6,7 @@ public class BogoSort implements Sorter {
     private final Random random = new Random();
     
     @Override
-    public void sort(int[] array, Visualizer v) {
+    public void sort(int[] array, SortObserver v) {
         int iterations = 0;
         
         while (!isSorted(array, v) && iterations < MAX_ITERATIONS) {
@@ -24,7 +24,7 @@ public class BogoSort implements Sorter {
         v.markAllSorted();
     }
    
-    private boolean isSorted(int[] array, Visualizer v) {
+    private boolean isSorted(int[] array, SortObserver v) {
         for (int i = 0; i < array.length - 1; i++) {
             v.highlight(i, i + 1);
             v.sleep();
@@ -37,7 +37,7 @@ public class BogoSort implements Sorter {
     }
     
     
-    private void shuffle(int[] array, Visualizer v) {
+    private void shuffle(int[] array, SortObserver v) {
         for (int i = array.length - 1; i > 0; i--) {
             int j = random.nextInt(i + 1);
             
@@ -0,0 +1,117 @@
+/**
+ * Scalar sort kernels whose inner loops have no data-dependent branches.
+ * On random input the comparison in a partition or merge loop goes either
+ * way about half the time, so a branch on it is mispredicted constantly.
+ * Here comparison results are turned into 0 or 1 with arithmetic and
+ * used as increments and select masks instead.
+ * - partition is BlockQuicksort's: it scans a block of 64 values from
+ *   each end, recording the offsets of the values on the wrong side in
+ *   two offset buffers without branching, then swaps them in pairs.
+ * - merge picks the smaller head with a select mask and advances both
+ *   run indices by the comparison result, like a conditional move.
+ * Blocks are still insertion sorted. On presorted input the branches are
+ * predicted anyway, so these kernels only pay off on random data.
+ * BranchlessKernelBench in jmh/ measures both, with branch misses per
+ * sort from JMH's perfnorm profiler.
+ */
+public class BranchlessSortKernels extends ScalarSortKernels {
+    // Values scanned per block from each end; the offsets of both take 2 * BLOCK_SIZE ints
+    private static final int BLOCK_SIZE = 64;
+    
+    @Override
+    public int partition(int[] array, int from, int to, int pivot, int[] buffer) {
+        int left = from;
+        int right = to - 1;
+        
+        // Offsets of values >= pivot in the left block and < pivot in the right block
+        int leftCount = 0, leftStart = 0;
+        int rightCount = 0, rightStart = 0;
+        while (right - left + 1 > 2 * BLOCK_SIZE) {
+            if (leftCount == 0) {
+                leftStart = 0;
+                for (int j = 0; j < BLOCK_SIZE; j++) {
+                    buffer[leftCount] = j;
+                    leftCount += 1 - less(array[left + j], pivot);
+                }
+            }
+            if (rightCount == 0) {
+                rightStart = 0;
+                for (int j = 0; j < BLOCK_SIZE; j++) {
+                    buffer[BLOCK_SIZE + rightCount] = j;
+                    rightCount += less(array[right - j], pivot);
+                }
+            }
+            
+            int count = Math.min(leftCount, rightCount);
+            for (int j = 0; j < count; j++) {
+                int l = left + buffer[leftStart + j];
+                int r = right - buffer[BLOCK_SIZE + rightStart + j];
+                int temp = array[l];
+                array[l] = array[r];
+                array[r] = temp;
+            }
+            leftCount -= count;
+            rightCount -= count;
+            leftStart += count;
+            rightStart += count;
+            if (leftCount == 0) {
+                left += BLOCK_SIZE;
+            }
+            if (rightCount == 0) {
+                right -= BLOCK_SIZE;
+            }
+        }
+        
+        // What is left, including a block with unswapped offsets, is partitioned through the buffer
+        return partitionThroughBuffer(array, left, right + 1, pivot, buffer);
+    }
+    
+    /**
+     * Writes every value to both the front of the range and the buffer
+     * and advances only the side it belongs to.
+     */
+    private static int partitionThroughBuffer(int[] array, int from, int to, int pivot, int[] buffer) {
+        int low = from;
+        int high = 0;
+        for (int i = from; i < to; i++) {
+            int value = array[i];
+            int below = less(value, pivot);
+            array[low] = value;
+            buffer[high] = value;
+            low += below;
+            high += 1 - below;
+        }
+        System.arraycopy(buffer, 0, array, low, high);
+        return low;
+    }
+    
+    @Override
+    public void merge(int[] array, int from, int mid, int to, int[] buffer) {
+        int n1 = mid - from;
+        System.arraycopy(array, from, buffer, 0, n1);
+        
+        // The right run is never overwritten before it is read
+        int i = 0, j = mid, k = from;
+        while (i < n1 && j < to) {
+            int a = buffer[i];
+            int b = array[j];
+            int takeRight = less(b, a);
+            array[k++] = a ^ ((a ^ b) & -takeRight);
+            i += 1 - takeRight;
+            j += takeRight;
+        }
+        System.arraycopy(buffer, i, array, k, n1 - i);
+    }
+    
+    /**
+     * Returns 1 if a < b and 0 otherwise, without a branch.
+     */
+    private static int less(int a, int b) {
+        return (int) (((long) a - b) >>> 63);
+    }
+    
+    @Override
+    public String getName() {
+        return "branchless";
+    }
+}
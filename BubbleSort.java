@@ -6,7 +6,7 @@
 public class BubbleSort implements Sorter {
     
     @Override
-    public void sort(int[] array, Visualizer v) {
+    public void sort(int[] array, SortObserver v) {
         int n = array.length;
         
         for (int i = 0; i < n - 1; i++) {
@@ -1,63 +1,129 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * Bucket Sort implementation.
- * Time Complexity: O(n + k) average, O(n²) worst case
+ * A counting pass sizes every bucket exactly, so elements are scattered
+ * into one flat buffer at per-bucket offsets instead of into lists.
+ * The number of buckets grows with the input instead of being fixed at
+ * sqrt(n). Small buckets are finished with insertion sort and large ones
+ * are bucket sorted again over their own, narrower value range.
+ * Time Complexity: O(n + k) average, O(n log(range)) worst case
  * Space Complexity: O(n + k)
  */
 public class BucketSort implements Sorter {
+    // Buckets this small are finished with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    
+    // Target average number of elements per bucket
+    private static final int ELEMENTS_PER_BUCKET = 4;
+    
+    // Upper bound on buckets per pass, keeping the counts array cache-resident
+    private static final int MAX_BUCKETS = 1 << 16;
     
     @Override
-    public void sort(int[] array, Visualizer v) {
+    public void sort(int[] array, SortObserver v) {
         int n = array.length;
-        if (n <= 0) return;
+        if (n > 1) {
+            bucketSort(array, ScratchBuffer.get(n), 0, n, v);
+        }
+        v.markAllSorted();
+    }
+    
+    /**
+     * Bucket sorts array[from, to), using the same range of buffer for the scatter.
+     */
+    private void bucketSort(int[] array, int[] buffer, int from, int to, SortObserver v) {
+        int n = to - from;
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(array, from, to, v);
+            return;
+        }
         
         // Find min and max values
-        int min = array[0], max = array[0];
-        for (int i = 1; i < n; i++) {
+        int min = array[from], max = array[from];
+        for (int i = from + 1; i < to; i++) {
             v.highlight(i, -1);
             if (array[i] < min) min = array[i];
             if (array[i] > max) max = array[i];
         }
         v.sleep();
         
-        // Create buckets
-        int bucketCount = (int) Math.sqrt(n);
-        if (bucketCount < 1) bucketCount = 1;
+        // All values equal, nothing to do
+        if (min == max) {
+            return;
+        }
+        
+        // Choose the bucket count from the input size, never more than the value range
+        long range = (long) max - min + 1;
+        int bucketCount = (int) Math.min(range, Math.min(MAX_BUCKETS, Math.max(2, n / ELEMENTS_PER_BUCKET)));
+        
+        // Count the elements of every bucket
+        int[] offsets = new int[bucketCount];
+        for (int i = from; i < to; i++) {
+            offsets[bucketIndex(array[i], min, range, bucketCount)]++;
+        }
         
-        List<List<Integer>> buckets = new ArrayList<>();
-        for (int i = 0; i < bucketCount; i++) {
-            buckets.add(new ArrayList<>());
+        // Turn counts into start offsets
+        int start = from;
+        for (int b = 0; b < bucketCount; b++) {
+            int count = offsets[b];
+            offsets[b] = start;
+            start += count;
         }
         
-        // Distribute elements into buckets
-        int range = max - min + 1;
-        for (int i = 0; i < n; i++) {
+        // Distribute elements into the buffer; each offset ends at the start of the next bucket
+        for (int i = from; i < to; i++) {
             v.highlight(i, -1);
             v.sleep();
             
-            int bucketIndex = (int) ((long)(array[i] - min) * (bucketCount - 1) / range);
-            buckets.get(bucketIndex).add(array[i]);
+            buffer[offsets[bucketIndex(array[i], min, range, bucketCount)]++] = array[i];
+        }
+        
+        // Place back
+        System.arraycopy(buffer, from, array, from, n);
+        for (int i = from; i < to; i++) {
+            v.updateValue(i, array[i]);
         }
+        v.sleep();
         
-        // Sort individual buckets and place back
-        int index = 0;
-        for (int i = 0; i < bucketCount; i++) {
-            List<Integer> bucket = buckets.get(i);
-            Collections.sort(bucket);
+        // Sort individual buckets in place
+        int bucketStart = from;
+        for (int b = 0; b < bucketCount; b++) {
+            int bucketEnd = offsets[b];
+            if (bucketEnd - bucketStart > 1) {
+                bucketSort(array, buffer, bucketStart, bucketEnd, v);
+            }
+            bucketStart = bucketEnd;
+        }
+    }
+    
+    /**
+     * Returns the bucket of a value; min lands in the first bucket and max in the last.
+     */
+    private static int bucketIndex(int value, int min, long range, int bucketCount) {
+        return (int) (((long) value - min) * bucketCount / range);
+    }
+    
+    /**
+     * Insertion sort for array[from, to).
+     */
+    private void insertionSort(int[] array, int from, int to, SortObserver v) {
+        for (int i = from + 1; i < to; i++) {
+            int key = array[i];
+            int j = i - 1;
             
-            for (int value : bucket) {
-                array[index] = value;
-                v.updateValue(index, value);
-                v.highlight(index, -1);
+            v.highlight(i, -1);
+            v.sleep();
+            
+            while (j >= from && array[j] > key) {
+                v.highlight(j, j + 1);
+                array[j + 1] = array[j];
+                v.updateValue(j + 1, array[j]);
                 v.sleep();
-                index++;
+                j--;
             }
+            
+            array[j + 1] = key;
+            v.updateValue(j + 1, key);
         }
-        
-        v.markAllSorted();
     }
     
     @Override
@@ -75,4 +141,3 @@ public class BucketSort implements Sorter {
         return "O(n + k)";
     }
 }
-
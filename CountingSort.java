@@ -0,0 +1,87 @@
+/**
+ * Counting Sort implementation.
+ * One pass finds the minimum and maximum, as in Bucket Sort. When the
+ * value range is small next to the input, a primitive histogram with one
+ * counter per value is filled in a second pass and the array is rewritten
+ * from the counts, so nothing is compared or moved one by one. Wider
+ * ranges would need more counters than there are values, so they go to
+ * Radix Sort instead.
+ * Time Complexity: O(n + k), k = max - min + 1
+ * Space Complexity: O(k)
+ */
+public class CountingSort implements Sorter {
+    // Ranges up to this size are always counted; the counts stay in cache
+    static final int SMALL_RANGE = 1 << 12;
+    
+    private final Sorter radixSort = new RadixSort();
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n < 2) {
+            v.markAllSorted();
+            return;
+        }
+        
+        // Find min and max values
+        int min = array[0], max = array[0];
+        for (int i = 1; i < n; i++) {
+            v.highlight(i, -1);
+            if (array[i] < min) min = array[i];
+            if (array[i] > max) max = array[i];
+        }
+        v.sleep();
+        
+        if (!fits((long) max - min + 1, n)) {
+            radixSort.sort(array, v);
+            return;
+        }
+        countingSort(array, min, max, v);
+        v.markAllSorted();
+    }
+    
+    /**
+     * Returns true if a histogram of range counters is worth it for n values.
+     */
+    static boolean fits(long range, int n) {
+        return range <= Math.max(SMALL_RANGE, n);
+    }
+    
+    /**
+     * Sorts array, whose values all lie in [min, max], from a histogram.
+     */
+    static void countingSort(int[] array, int min, int max, SortObserver v) {
+        int[] counts = new int[max - min + 1];
+        for (int i = 0; i < array.length; i++) {
+            v.highlight(i, -1);
+            counts[array[i] - min]++;
+        }
+        v.sleep();
+        
+        // Write every value back as many times as it was counted
+        int i = 0;
+        for (int k = 0; k < counts.length; k++) {
+            int value = min + k;
+            for (int end = i + counts[k]; i < end; i++) {
+                array[i] = value;
+                v.updateValue(i, value);
+                v.sleep();
+            }
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "Counting Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n + k)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(k)";
+    }
+}
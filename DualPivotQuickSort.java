@@ -0,0 +1,105 @@
+/**
+ * Dual-Pivot Quick Sort implementation (Yaroslavskiy's scheme).
+ * Two pivots split each range into three parts: less than the first
+ * pivot, between the pivots, and greater than the second. Each pivot is
+ * QuickSort's median of three, taken around one of the tertiles. When
+ * both pivots are equal the middle part holds only copies of the pivot
+ * and is skipped, so heavily duplicated keys sort quickly.
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(log n)
+ */
+public class DualPivotQuickSort implements Sorter {
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n > 1) {
+            dualPivotQuickSort(array, 0, n - 1, 2 * QuickSort.log2(n), v);
+        }
+        v.markAllSorted();
+    }
+    
+    /**
+     * Recursive dual-pivot quick sort of array[low, high].
+     * Falls back to Heap Sort past the depth limit like QuickSort does.
+     */
+    private void dualPivotQuickSort(int[] array, int low, int high, int depthLimit, SortObserver v) {
+        if (high - low + 1 <= QuickSort.INSERTION_SORT_THRESHOLD) {
+            QuickSort.insertionSort(array, low, high, v);
+            return;
+        }
+        if (depthLimit == 0) {
+            HeapSort.heapSort(array, low, high + 1, v);
+            return;
+        }
+        
+        // Median of three around each tertile, smaller one at low and larger one at high
+        int third = (high - low) / 3;
+        int step = third / 4;
+        int m1 = QuickSort.medianOfThree(array, low + third - step, low + third, low + third + step, v);
+        int m2 = QuickSort.medianOfThree(array, high - third - step, high - third, high - third + step, v);
+        v.highlight(m1, m2);
+        if (array[m1] < array[m2]) {
+            QuickSort.swap(array, m1, low, v);
+            QuickSort.swap(array, m2, high, v);
+        } else {
+            QuickSort.swap(array, m1, high, v);
+            QuickSort.swap(array, m2, low, v);
+        }
+        int pivot1 = array[low];
+        int pivot2 = array[high];
+        
+        // array[low + 1, lt) < pivot1, array[lt, k) in between, array(gt, high - 1] > pivot2
+        int lt = low + 1;
+        int gt = high - 1;
+        int k = lt;
+        while (k <= gt) {
+            v.highlight(k, -1);
+            v.sleep();
+            
+            if (array[k] < pivot1) {
+                QuickSort.swap(array, k, lt, v);
+                lt++;
+            } else if (array[k] > pivot2) {
+                while (array[gt] > pivot2 && k < gt) {
+                    v.highlight(k, gt);
+                    gt--;
+                }
+                QuickSort.swap(array, k, gt, v);
+                gt--;
+                if (array[k] < pivot1) {
+                    QuickSort.swap(array, k, lt, v);
+                    lt++;
+                }
+            }
+            k++;
+        }
+        lt--;
+        gt++;
+        
+        // Place the pivots between the three parts
+        QuickSort.swap(array, low, lt, v);
+        QuickSort.swap(array, high, gt, v);
+        
+        dualPivotQuickSort(array, low, lt - 1, depthLimit - 1, v);
+        if (pivot1 < pivot2) {
+            dualPivotQuickSort(array, lt + 1, gt - 1, depthLimit - 1, v);
+        }
+        dualPivotQuickSort(array, gt + 1, high, depthLimit - 1, v);
+    }
+    
+    @Override
+    public String getName() {
+        return "Dual-Pivot Quick Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(log n)";
+    }
+}
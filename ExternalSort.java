@@ -0,0 +1,417 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * External merge sort for files of ints larger than the heap.
+ * The input is read in chunks that fit in memory, each chunk is sorted
+ * with one of the in-memory sorters and spilled to a temp file as a
+ * sorted run, and the runs are then merged through a loser tree. Every
+ * run is read through its own direct buffer, so the merge uses
+ * fan-in × buffer size bytes outside the heap. When there are more runs
+ * than the fan-in, groups of runs are merged into longer runs first.
+ *
+ * Files hold raw 32-bit big-endian ints, as written by DataOutputStream.
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(chunk size) memory, O(n) disk
+ *
+ * Usage:
+ *   java -Xmx4g ExternalSort input.bin output.bin [--chunk-size 268435456]
+ *                            [--sorter "Tim Sort"] [--buffer-size 1048576]
+ *                            [--fan-in 256] [--temp-dir /tmp]
+ */
+public class ExternalSort {
+    // 256M ints (1 GB) per chunk, leaving room for the sorters' scratch space in a 4 GB heap
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 28;
+    
+    // Bytes buffered per open run while merging
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    
+    // Runs merged at once; more runs than this take an extra pass
+    private static final int DEFAULT_FAN_IN = 256;
+    
+    private final Sorter sorter;
+    private final int chunkSize;
+    private final int bufferSize;
+    private final int fanIn;
+    private final Path tempDir;
+    
+    /**
+     * Creates an external sort that sorts chunks with Quick Sort.
+     */
+    public ExternalSort() {
+        this(new QuickSort(), DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Creates an external sort.
+     * @param sorter The in-memory sorter used for every chunk
+     * @param chunkSize Ints sorted in memory at a time
+     */
+    public ExternalSort(Sorter sorter, int chunkSize) {
+        this(sorter, chunkSize, DEFAULT_BUFFER_SIZE, DEFAULT_FAN_IN, null);
+    }
+    
+    /**
+     * Creates an external sort.
+     * @param sorter The in-memory sorter used for every chunk
+     * @param chunkSize Ints sorted in memory at a time
+     * @param bufferSize Bytes buffered per file, rounded down to whole ints
+     * @param fanIn Maximum number of runs merged at once
+     * @param tempDir Directory for the runs, or null for the default temp directory
+     */
+    public ExternalSort(Sorter sorter, int chunkSize, int bufferSize, int fanIn, Path tempDir) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (bufferSize < Integer.BYTES) {
+            throw new IllegalArgumentException("bufferSize must hold at least one int: " + bufferSize);
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("fanIn must be at least 2: " + fanIn);
+        }
+        this.sorter = sorter;
+        this.chunkSize = chunkSize;
+        this.bufferSize = bufferSize / Integer.BYTES * Integer.BYTES;
+        this.fanIn = fanIn;
+        this.tempDir = tempDir;
+    }
+    
+    /**
+     * Sorts the ints in input and writes them to output.
+     * Temp files are deleted before returning, even on failure.
+     */
+    public void sort(Path input, Path output) throws IOException {
+        long bytes = Files.size(input);
+        if (bytes % Integer.BYTES != 0) {
+            throw new IOException(input + " is not a whole number of ints (" + bytes + " bytes)");
+        }
+        long count = bytes / Integer.BYTES;
+        
+        List<Path> tempFiles = new ArrayList<>();
+        try {
+            // Small inputs are sorted in one go without any runs
+            if (count <= chunkSize) {
+                int[] array = new int[(int) count];
+                try (IntReader in = new IntReader(input, bufferSize)) {
+                    in.read(array, 0, array.length);
+                }
+                sorter.sort(array);
+                writeRun(array, array.length, output);
+                return;
+            }
+            
+            List<Path> runs = createRuns(input, count, tempFiles);
+            
+            // The chunk and the sorters' scratch space are not needed while merging
+            ScratchBuffer.release();
+            
+            merge(mergePasses(runs, tempFiles), output);
+        } finally {
+            for (Path file : tempFiles) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    /**
+     * Merges groups of fanIn runs into longer runs until at most fanIn are
+     * left, deleting the runs it has merged.
+     * @param tempFiles Collects the runs created, for the caller to delete
+     * @return The remaining runs, in their original order
+     */
+    List<Path> mergePasses(List<Path> runs, List<Path> tempFiles) throws IOException {
+        while (runs.size() > fanIn) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Path> group = runs.subList(i, Math.min(runs.size(), i + fanIn));
+                Path run = createTempFile(tempFiles);
+                merge(group, run);
+                for (Path consumed : group) {
+                    Files.delete(consumed);
+                }
+                merged.add(run);
+            }
+            runs = merged;
+        }
+        return runs;
+    }
+    
+    /**
+     * Reads the input chunk by chunk and writes every chunk back sorted as a run.
+     */
+    private List<Path> createRuns(Path input, long count, List<Path> tempFiles) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        int[] chunk = new int[chunkSize];
+        try (IntReader in = new IntReader(input, bufferSize)) {
+            for (long remaining = count; remaining > 0; remaining -= chunkSize) {
+                int length = in.read(chunk, 0, (int) Math.min(chunkSize, remaining));
+                
+                // The sorters work on whole arrays, so only the short last chunk is copied
+                int[] data = length == chunkSize ? chunk : Arrays.copyOf(chunk, length);
+                sorter.sort(data);
+                
+                Path run = createTempFile(tempFiles);
+                writeRun(data, length, run);
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+    
+    /**
+     * Merges sorted runs into output with a loser tree.
+     */
+    void merge(List<Path> runs, Path output) throws IOException {
+        try (IntWriter out = new IntWriter(output, bufferSize)) {
+            merge(runs, out::write);
+        }
+    }
+    
+    /**
+     * Merges sorted runs with a loser tree, passing the values to sink in ascending order.
+     */
+    void merge(List<Path> runs, IntSink sink) throws IOException {
+        int k = runs.size();
+        IntReader[] readers = new IntReader[k];
+        try {
+            LoserTree tree = new LoserTree(k);
+            for (int i = 0; i < k; i++) {
+                readers[i] = new IntReader(runs.get(i), bufferSize);
+                if (readers[i].hasNext()) {
+                    tree.set(i, readers[i].next());
+                } else {
+                    tree.setExhausted(i);
+                }
+            }
+            tree.build();
+            
+            while (!tree.isEmpty()) {
+                sink.accept(tree.winnerKey());
+                IntReader reader = readers[tree.winner()];
+                if (reader.hasNext()) {
+                    tree.replaceWinner(reader.next());
+                } else {
+                    tree.exhaustWinner();
+                }
+            }
+        } finally {
+            for (IntReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+    
+    private void writeRun(int[] array, int length, Path file) throws IOException {
+        try (IntWriter out = new IntWriter(file, bufferSize)) {
+            out.write(array, 0, length);
+        }
+    }
+    
+    private Path createTempFile(List<Path> tempFiles) throws IOException {
+        Path file = tempDir != null
+                ? Files.createTempFile(tempDir, "sort-run-", ".bin")
+                : Files.createTempFile("sort-run-", ".bin");
+        tempFiles.add(file);
+        return file;
+    }
+    
+    /**
+     * Receiver of the values coming out of a merge.
+     */
+    interface IntSink {
+        void accept(int value) throws IOException;
+    }
+    
+    /**
+     * Sequential reader of big-endian ints through a direct buffer.
+     */
+    static final class IntReader implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private IntBuffer ints;
+        private boolean eof;
+        
+        IntReader(Path file, int bufferSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.bytes = ByteBuffer.allocateDirect(bufferSize);
+            this.ints = IntBuffer.allocate(0);
+        }
+        
+        boolean hasNext() throws IOException {
+            return ints.hasRemaining() || fill();
+        }
+        
+        /**
+         * Returns the next int; hasNext() must have returned true.
+         */
+        int next() {
+            return ints.get();
+        }
+        
+        /**
+         * Reads up to length ints into array, stopping early only at the end of the file.
+         * @return The number of ints read
+         */
+        int read(int[] array, int offset, int length) throws IOException {
+            int read = 0;
+            while (read < length && hasNext()) {
+                int n = Math.min(length - read, ints.remaining());
+                ints.get(array, offset + read, n);
+                read += n;
+            }
+            return read;
+        }
+        
+        /**
+         * Refills the buffer.
+         * @return False at the end of the file
+         */
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            bytes.clear();
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            bytes.flip();
+            if (bytes.remaining() % Integer.BYTES != 0) {
+                throw new IOException("File ends in the middle of an int");
+            }
+            ints = bytes.asIntBuffer();
+            return ints.hasRemaining();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    /**
+     * Sequential writer of big-endian ints through a direct buffer.
+     */
+    static final class IntWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes;
+        private final IntBuffer ints;
+        
+        IntWriter(Path file, int bufferSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.bytes = ByteBuffer.allocateDirect(bufferSize);
+            this.ints = bytes.asIntBuffer();
+        }
+        
+        void write(int value) throws IOException {
+            if (!ints.hasRemaining()) {
+                flush();
+            }
+            ints.put(value);
+        }
+        
+        void write(int[] array, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!ints.hasRemaining()) {
+                    flush();
+                }
+                int n = Math.min(length, ints.remaining());
+                ints.put(array, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+        
+        private void flush() throws IOException {
+            bytes.clear();
+            bytes.limit(ints.position() * Integer.BYTES);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            ints.clear();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java ExternalSort input.bin output.bin [--chunk-size n] [--sorter name]"
+                    + " [--buffer-size bytes] [--fan-in k] [--temp-dir dir]");
+            System.exit(1);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        Sorter sorter = new QuickSort();
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        int bufferSize = DEFAULT_BUFFER_SIZE;
+        int fanIn = DEFAULT_FAN_IN;
+        Path tempDir = null;
+        
+        for (int i = 2; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--chunk-size":
+                    chunkSize = Integer.parseInt(value);
+                    break;
+                case "--sorter":
+                    sorter = parseSorter(value);
+                    break;
+                case "--buffer-size":
+                    bufferSize = Integer.parseInt(value);
+                    break;
+                case "--fan-in":
+                    fanIn = Integer.parseInt(value);
+                    break;
+                case "--temp-dir":
+                    tempDir = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        
+        long start = System.nanoTime();
+        new ExternalSort(sorter, chunkSize, bufferSize, fanIn, tempDir).sort(input, output);
+        System.out.printf("Sorted %,d ints in %.1f s%n",
+                Files.size(output) / Integer.BYTES, (System.nanoTime() - start) / 1e9);
+    }
+    
+    /**
+     * Returns the chunk sorter with the given name, e.g. "Merge Sort".
+     */
+    private static Sorter parseSorter(String name) {
+        for (Sorter sorter : new Sorter[] {new QuickSort(), new MergeSort(), new TimSort()}) {
+            if (sorter.getName().equalsIgnoreCase(name)) {
+                return sorter;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sorter " + name);
+    }
+}
@@ -1,81 +1,371 @@
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
 /**
  * Heap Sort implementation.
+ * Sifting uses Floyd's bottom-up method: the hole left at the top of the
+ * heap descends to a leaf by always promoting the larger child, and the
+ * displaced element is then sifted back up from there. Each level costs
+ * one comparison per child instead of also comparing against the element,
+ * and since most elements belong near the leaves the climb back is short.
+ * The heap can also be 4-ary or 8-ary: a wider heap has fewer levels, and
+ * the children of a node are adjacent, so each level touches one or two
+ * cache lines instead of one per level of a binary heap. In large arrays
+ * the heap is offset so that no group of children straddles two lines.
+ * Also sorts LargeIntArrays in place, e.g. off-heap arrays or
+ * memory-mapped files, and IntBuffers through the same code.
  * Time Complexity: O(n log n)
  * Space Complexity: O(1)
  */
 public class HeapSort implements Sorter {
+    // Ints per 64-byte cache line
+    private static final int LINE_INTS = 16;
+    
+    // Ints taken by an int[]'s 16-byte header (64-bit JVM with compressed class pointers)
+    private static final int HEADER_INTS = 4;
+    
+    // Arrays of 512 KB or more: humongous in G1 with its smallest (1 MB) regions
+    static final int ALIGNMENT_THRESHOLD = 1 << 17;
+    
+    private final int arity;
+    
+    /**
+     * Creates a heap sort over a binary heap.
+     */
+    public HeapSort() {
+        this(2);
+    }
+    
+    /**
+     * Creates a heap sort over a d-ary heap.
+     * @param arity Children per node, e.g. 2, 4 or 8
+     */
+    public HeapSort(int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+    }
     
     @Override
-    public void sort(int[] array, Visualizer v) {
-        int n = array.length;
+    public void sort(int[] array, SortObserver v) {
+        heapSort(array, 0, array.length, arity, v);
+        v.markAllSorted();
+    }
+    
+    /**
+     * Sorts array[from, to) in place with a binary heap.
+     * QuickSort falls back to this when its recursion gets too deep.
+     */
+    static void heapSort(int[] array, int from, int to, SortObserver v) {
+        heapSort(array, from, to, 2, v);
+    }
+    
+    /**
+     * Sorts array[from, to) in place with a heap of the given arity.
+     * Large 4-, 8- and 16-ary heaps leave out the first few values (see
+     * alignmentSkip), so that every group of siblings sits in one cache
+     * line, and merge them back in at the end.
+     */
+    static void heapSort(int[] array, int from, int to, int arity, SortObserver v) {
+        int skip = alignmentSkip(from, to - from, arity);
+        heapSortRange(array, from + skip, to, arity, v);
+        if (skip > 0) {
+            mergeSkipped(array, from, from + skip, to, v);
+        }
+    }
+    
+    /**
+     * Returns how many values at the front of array[from, from + n) to
+     * leave out of a d-ary heap so its sibling groups line up with cache
+     * lines, or 0 to heap the whole range.
+     * The children of heap node i are at heap indices d*i+1 .. d*i+d, so
+     * if the heap starts at array index start, every group starts at
+     * start + 1 plus a multiple of d. Element k of an int[] lies
+     * HEADER_INTS + k ints from the start of the array object. When that
+     * object starts on a cache line and d divides a line, a group whose
+     * start is a multiple of d from there never straddles two lines.
+     * Only large arrays get this. G1 allocates them as humongous objects
+     * at the start of a heap region, so they do start on a line, and
+     * only heaps that far outgrow the caches gain from it. Elsewhere the
+     * skip costs one pass to merge at most d - 1 values back in.
+     */
+    static int alignmentSkip(int from, int n, int arity) {
+        if (arity < 4 || LINE_INTS % arity != 0 || n < ALIGNMENT_THRESHOLD) {
+            return 0;
+        }
+        return Math.floorMod(-(HEADER_INTS + from + 1), arity);
+    }
+    
+    /**
+     * Sorts the values skipped at array[from, start) and merges them into
+     * the sorted array[start, to). The skipped values are copied out, so
+     * the merge writes behind its read position and needs no other buffer.
+     */
+    private static void mergeSkipped(int[] array, int from, int start, int to, SortObserver v) {
+        QuickSort.insertionSort(array, from, start - 1, v);
+        int[] skipped = Arrays.copyOfRange(array, from, start);
+        int i = 0;
+        int j = start;
+        int k = from;
+        while (i < skipped.length) {
+            int value = j == to || skipped[i] <= array[j] ? skipped[i++] : array[j++];
+            array[k] = value;
+            v.updateValue(k++, value);
+        }
+    }
+    
+    /**
+     * Heap sort proper of array[from, to), with the heap rooted at from.
+     */
+    private static void heapSortRange(int[] array, int from, int to, int arity, SortObserver v) {
+        int n = to - from;
         
-        // Build max heap
-        for (int i = n / 2 - 1; i >= 0; i--) {
-            heapify(array, n, i, v);
+        // Build max heap from the last parent up
+        for (int i = (n - 2) / arity; i >= 0 && n > 1; i--) {
+            siftDown(array, from, n, i, arity, v);
         }
         
         // Extract elements from heap one by one
         for (int i = n - 1; i > 0; i--) {
             // Move current root to end
-            v.highlight(0, i);
-            v.swap(0, i);
-            int temp = array[0];
-            array[0] = array[i];
-            array[i] = temp;
+            v.swap(from, from + i);
+            int temp = array[from];
+            array[from] = array[from + i];
+            array[from + i] = temp;
             v.sleep();
             
             // Mark as sorted
-            v.markSorted(n - i);
+            if (n == array.length) {
+                v.markSorted(n - i);
+            }
             
-            // Heapify reduced heap
-            heapify(array, i, 0, v);
+            // Restore the reduced heap
+            siftDown(array, from, i, 0, arity, v);
         }
-        
-        v.markAllSorted();
     }
     
     /**
-     * Heapifies a subtree rooted at index i.
+     * Sifts the element at index root of the d-ary max-heap in
+     * array[from, from + n) down to its place, Floyd's way: the hole
+     * descends to a leaf, promoting the largest child at every level,
+     * then the element climbs back up from the leaf.
      */
-    private void heapify(int[] array, int n, int i, Visualizer v) {
-        int largest = i;
-        int left = 2 * i + 1;
-        int right = 2 * i + 2;
+    private static void siftDown(int[] array, int from, int n, int root, int arity, SortObserver v) {
+        if (arity == 2) {
+            siftDownBinary(array, from, n, root, v);
+            return;
+        }
+        int value = array[from + root];
+        int hole = root;
         
-        // Check if left child is larger than root
-        if (left < n) {
-            v.highlight(largest, left);
-            v.sleep();
-            if (array[left] > array[largest]) {
-                largest = left;
+        // Bounded by the last parent, so the child index never overflows on huge heaps
+        int lastParent = Math.floorDiv(n - 2, arity);
+        while (hole <= lastParent) {
+            int child = arity * hole + 1;
+            int end = child + Math.min(arity, n - child);
+            int largest = child;
+            int largestValue = array[from + child];
+            for (int c = child + 1; c < end; c++) {
+                v.highlight(from + largest, from + c);
+                int childValue = array[from + c];
+                if (childValue > largestValue) {
+                    largest = c;
+                    largestValue = childValue;
+                }
             }
+            array[from + hole] = largestValue;
+            v.updateValue(from + hole, largestValue);
+            v.sleep();
+            hole = largest;
         }
         
-        // Check if right child is larger than current largest
-        if (right < n) {
-            v.highlight(largest, right);
+        while (hole > root) {
+            int parent = (hole - 1) / arity;
+            v.highlight(from + parent, from + hole);
+            int parentValue = array[from + parent];
+            if (parentValue >= value) {
+                break;
+            }
+            array[from + hole] = parentValue;
+            v.updateValue(from + hole, parentValue);
+            hole = parent;
+        }
+        array[from + hole] = value;
+        v.updateValue(from + hole, value);
+        v.sleep();
+    }
+    
+    /**
+     * siftDown for a binary heap, with the child choice and the parent
+     * index written out instead of looped and divided.
+     */
+    private static void siftDownBinary(int[] array, int from, int n, int root, SortObserver v) {
+        int value = array[from + root];
+        int hole = root;
+        int lastParent = (n - 2) >> 1;
+        while (hole <= lastParent) {
+            int child = 2 * hole + 1;
+            int childValue = array[from + child];
+            if (child + 1 < n) {
+                v.highlight(from + child, from + child + 1);
+                int rightValue = array[from + child + 1];
+                if (rightValue > childValue) {
+                    child++;
+                    childValue = rightValue;
+                }
+            }
+            array[from + hole] = childValue;
+            v.updateValue(from + hole, childValue);
             v.sleep();
-            if (array[right] > array[largest]) {
-                largest = right;
+            hole = child;
+        }
+        
+        while (hole > root) {
+            int parent = (hole - 1) >>> 1;
+            v.highlight(from + parent, from + hole);
+            int parentValue = array[from + parent];
+            if (parentValue >= value) {
+                break;
+            }
+            array[from + hole] = parentValue;
+            v.updateValue(from + hole, parentValue);
+            hole = parent;
+        }
+        array[from + hole] = value;
+        v.updateValue(from + hole, value);
+        v.sleep();
+    }
+    
+    /**
+     * Places value at index i of the binary max-heap in array[from, from + n)
+     * and moves it down until both children are smaller, without observer
+     * events. Used by TopK, whose new values usually stop near the top.
+     */
+    static void siftDown(int[] array, int from, int n, int i, int value) {
+        int lastParent = (n - 2) >> 1;
+        while (i <= lastParent) {
+            int child = 2 * i + 1;
+            int childValue = array[from + child];
+            if (child + 1 < n && array[from + child + 1] > childValue) {
+                child++;
+                childValue = array[from + child];
+            }
+            if (childValue <= value) {
+                break;
+            }
+            array[from + i] = childValue;
+            i = child;
+        }
+        array[from + i] = value;
+    }
+    
+    /**
+     * Returns the k smallest values of the array in ascending order,
+     * streaming it through a TopK heap. The array is not modified.
+     * Time Complexity: O(n log k)
+     */
+    public static int[] smallest(int[] array, int k) {
+        TopK top = new TopK(Math.min(k, array.length));
+        top.addAll(array);
+        return top.toSortedArray();
+    }
+    
+    /**
+     * Sorts the ints between the buffer's position and limit in place,
+     * without copying them to the heap. The position is left unchanged.
+     */
+    public static void sort(IntBuffer buffer) {
+        sort(SegmentedIntArray.wrap(buffer));
+    }
+    
+    /**
+     * Sorts a long-indexed array in place, e.g. an OffHeapIntArray or a
+     * memory-mapped file.
+     */
+    public static void sort(LargeIntArray array) {
+        heapSort(array, 0, array.length());
+    }
+    
+    /**
+     * Sorts array[from, to) in place with a binary heap, the long-indexed
+     * version of heapSort without observer events.
+     * QuickSort falls back to this when its recursion gets too deep.
+     */
+    static void heapSort(LargeIntArray array, long from, long to) {
+        long n = to - from;
+        for (long i = (n - 2) / 2; i >= 0 && n > 1; i--) {
+            siftDown(array, from, n, i);
+        }
+        for (long i = n - 1; i > 0; i--) {
+            int max = array.get(from);
+            array.set(from, array.get(from + i));
+            array.set(from + i, max);
+            siftDown(array, from, i, 0);
+        }
+    }
+    
+    /**
+     * Sifts the element at index root of the binary max-heap in
+     * array[from, from + n) down Floyd's way, like siftDownBinary.
+     */
+    private static void siftDown(LargeIntArray array, long from, long n, long root) {
+        int value = array.get(from + root);
+        long hole = root;
+        long lastParent = (n - 2) >> 1;
+        while (hole <= lastParent) {
+            long child = 2 * hole + 1;
+            int childValue = array.get(from + child);
+            if (child + 1 < n) {
+                int rightValue = array.get(from + child + 1);
+                if (rightValue > childValue) {
+                    child++;
+                    childValue = rightValue;
+                }
             }
+            array.set(from + hole, childValue);
+            hole = child;
         }
         
-        // If largest is not root, swap and continue heapifying
-        if (largest != i) {
-            v.highlight(i, largest);
-            v.swap(i, largest);
-            int temp = array[i];
-            array[i] = array[largest];
-            array[largest] = temp;
-            v.sleep();
-            
-            heapify(array, n, largest, v);
+        while (hole > root) {
+            long parent = (hole - 1) >>> 1;
+            int parentValue = array.get(from + parent);
+            if (parentValue >= value) {
+                break;
+            }
+            array.set(from + hole, parentValue);
+            hole = parent;
         }
+        array.set(from + hole, value);
+    }
+    
+    /*
+     * Primitive specializations, generated from PrimitiveSorts.template.
+     * Doubles and floats sort like Arrays.sort: -0.0 before 0.0, NaN last.
+     */
+    public static void sort(long[] array) {
+        LongSorts.heapSort(array);
+    }
+    
+    public static void sort(double[] array) {
+        DoubleSorts.heapSort(array);
+    }
+    
+    public static void sort(float[] array) {
+        FloatSorts.heapSort(array);
+    }
+    
+    public static void sort(short[] array) {
+        ShortSorts.heapSort(array);
+    }
+    
+    public static void sort(char[] array) {
+        CharSorts.heapSort(array);
     }
     
     @Override
     public String getName() {
-        return "Heap Sort";
+        return arity == 2 ? "Heap Sort" : "Heap Sort (" + arity + "-ary)";
     }
     
     @Override
@@ -1,12 +1,16 @@
+import java.util.Comparator;
+import java.util.List;
+
 /**
  * Insertion Sort implementation.
+ * Also sorts object arrays and lists with a Comparator (stable).
  * Time Complexity: O(n²)
  * Space Complexity: O(1)
  */
 public class InsertionSort implements Sorter {
     
     @Override
-    public void sort(int[] array, Visualizer v) {
+    public void sort(int[] array, SortObserver v) {
         int n = array.length;
         
         for (int i = 1; i < n; i++) {
@@ -39,6 +43,35 @@ public class InsertionSort implements Sorter {
         v.markAllSorted();
     }
     
+    /**
+     * Sorts the array with the comparator. Equal elements keep their order.
+     */
+    public static <T> void sort(T[] array, Comparator<? super T> c) {
+        insertionSort(array, 0, array.length, c);
+    }
+    
+    /**
+     * Sorts the list with the comparator. Equal elements keep their order.
+     */
+    public static <T> void sort(List<T> list, Comparator<? super T> c) {
+        Permutations.sortList(list, array -> sort(array, c));
+    }
+    
+    /**
+     * Insertion sort of array[from, to) with a comparator.
+     */
+    static <T> void insertionSort(T[] array, int from, int to, Comparator<? super T> c) {
+        for (int i = from + 1; i < to; i++) {
+            T key = array[i];
+            int j = i - 1;
+            while (j >= from && c.compare(array[j], key) > 0) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = key;
+        }
+    }
+    
     @Override
     public String getName() {
         return "Insertion Sort";
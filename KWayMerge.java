@@ -0,0 +1,233 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * K-way merge of sorted int arrays (shards).
+ * The sequential merge feeds every shard into a LoserTree, so each output
+ * value costs log2(k) comparisons. The parallel merge splits the output
+ * into slices by co-ranking: for a slice boundary at output rank r it
+ * finds, per shard, how many of that shard's values are among the r
+ * smallest, by binary search over the key range. Each slice then merges
+ * its own subranges of the shards with no coordination between threads.
+ * Equal values are taken from lower-numbered shards first in both, so
+ * the result is the same as a stable sort of the concatenated shards.
+ * Time Complexity: O(n log k)
+ * Space Complexity: O(n) for the output, O(k) otherwise
+ */
+public final class KWayMerge {
+    // Slices are at least this long; smaller outputs are merged sequentially
+    private static final int MIN_SLICE = 1 << 16;
+    
+    private KWayMerge() {
+    }
+    
+    /**
+     * Merges sorted shards into a new sorted array.
+     */
+    public static int[] merge(int[]... shards) {
+        int[] out = new int[totalLength(shards)];
+        int k = shards.length;
+        int[] from = new int[k];
+        int[] to = new int[k];
+        for (int i = 0; i < k; i++) {
+            to[i] = shards[i].length;
+        }
+        merge(shards, from, to, out, 0);
+        return out;
+    }
+    
+    /**
+     * Merges sorted shards into a new sorted array in the common pool.
+     */
+    public static int[] parallelMerge(int[]... shards) {
+        return parallelMerge(ForkJoinPool.commonPool(), shards);
+    }
+    
+    /**
+     * Merges sorted shards into a new sorted array, one slice of the
+     * output per task.
+     * @param pool The pool running the slices
+     */
+    public static int[] parallelMerge(ForkJoinPool pool, int[]... shards) {
+        int n = totalLength(shards);
+        int[] out = new int[n];
+        int slices = Math.min(4 * pool.getParallelism(), n / MIN_SLICE);
+        if (slices <= 1) {
+            int[] from = new int[shards.length];
+            int[] to = new int[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                to[i] = shards[i].length;
+            }
+            merge(shards, from, to, out, 0);
+        } else {
+            pool.invoke(new SliceTask(shards, out, slices, 0, slices));
+        }
+        return out;
+    }
+    
+    /**
+     * Merges shards[i][from[i], to[i]) for every shard into out starting at
+     * outFrom. from is advanced as values are consumed.
+     */
+    static void merge(int[][] shards, int[] from, int[] to, int[] out, int outFrom) {
+        int k = shards.length;
+        int nonEmpty = 0;
+        int last = -1;
+        for (int i = 0; i < k; i++) {
+            if (from[i] < to[i]) {
+                nonEmpty++;
+                last = i;
+            }
+        }
+        if (nonEmpty == 0) {
+            return;
+        }
+        if (nonEmpty == 1) {
+            System.arraycopy(shards[last], from[last], out, outFrom, to[last] - from[last]);
+            from[last] = to[last];
+            return;
+        }
+        
+        LoserTree tree = new LoserTree(k);
+        for (int i = 0; i < k; i++) {
+            if (from[i] < to[i]) {
+                tree.set(i, shards[i][from[i]++]);
+            } else {
+                tree.setExhausted(i);
+            }
+        }
+        tree.build();
+        
+        int dest = outFrom;
+        while (!tree.isEmpty()) {
+            out[dest++] = tree.winnerKey();
+            int source = tree.winner();
+            if (from[source] < to[source]) {
+                tree.replaceWinner(shards[source][from[source]++]);
+            } else {
+                tree.exhaustWinner();
+            }
+        }
+    }
+    
+    /**
+     * Finds, for each shard, how many of its values are among the first
+     * rank values of the merged output, and stores the counts in positions.
+     * Ties at the boundary go to the lower-numbered shards, as in merge.
+     */
+    static void coRank(int[][] shards, long rank, int[] positions) {
+        // Smallest x such that more than rank values are <= x: the value at output index rank
+        long low = Integer.MIN_VALUE;
+        long high = Integer.MAX_VALUE;
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            long countAtMost = 0;
+            for (int[] shard : shards) {
+                countAtMost += upperBound(shard, (int) mid);
+            }
+            if (countAtMost > rank) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        int x = (int) low;
+        
+        // Everything below x is taken, then copies of x in shard order
+        long remaining = rank;
+        for (int i = 0; i < shards.length; i++) {
+            positions[i] = lowerBound(shards[i], x);
+            remaining -= positions[i];
+        }
+        for (int i = 0; i < shards.length && remaining > 0; i++) {
+            int take = (int) Math.min(upperBound(shards[i], x) - positions[i], remaining);
+            positions[i] += take;
+            remaining -= take;
+        }
+    }
+    
+    /**
+     * Returns the index of the first value >= key.
+     */
+    private static int lowerBound(int[] array, int key) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Returns the index of the first value > key.
+     */
+    private static int upperBound(int[] array, int key) {
+        int low = 0;
+        int high = array.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static int totalLength(int[][] shards) {
+        long n = 0;
+        for (int[] shard : shards) {
+            n += shard.length;
+        }
+        if (n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Merged length " + n + " does not fit in an array");
+        }
+        return (int) n;
+    }
+    
+    /**
+     * Merges output slices [low, high) of slices equal parts, splitting the
+     * range of slices in half until one remains.
+     */
+    private static class SliceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[][] shards;
+        private final int[] out;
+        private final int slices;
+        private final int low;
+        private final int high;
+        
+        SliceTask(int[][] shards, int[] out, int slices, int low, int high) {
+            this.shards = shards;
+            this.out = out;
+            this.slices = slices;
+            this.low = low;
+            this.high = high;
+        }
+        
+        @Override
+        protected void compute() {
+            if (high - low > 1) {
+                int mid = (low + high) >>> 1;
+                invokeAll(new SliceTask(shards, out, slices, low, mid),
+                        new SliceTask(shards, out, slices, mid, high));
+                return;
+            }
+            
+            int start = (int) ((long) out.length * low / slices);
+            int end = (int) ((long) out.length * high / slices);
+            int[] from = new int[shards.length];
+            int[] to = new int[shards.length];
+            coRank(shards, start, from);
+            coRank(shards, end, to);
+            merge(shards, from, to, out, start);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Ints addressed by a long index, for arrays that do not fit in an int[]
+ * or should not be copied into one: native memory (OffHeapIntArray, in
+ * the off-heap build), memory-mapped files and direct buffers
+ * (SegmentedIntArray).
+ * QuickSort, MergeSort, HeapSort and RadixSort sort any of them in place
+ * through this interface, so each has a single long-indexed version.
+ *
+ * Not thread-safe. Indices outside [0, length) throw
+ * IndexOutOfBoundsException.
+ */
+public interface LargeIntArray extends AutoCloseable {
+    /**
+     * Returns the number of ints.
+     */
+    long length();
+    
+    int get(long index);
+    
+    void set(long index, int value);
+    
+    /**
+     * Allocates a zeroed array of the same kind, e.g. for a merge buffer.
+     * The caller closes it.
+     */
+    LargeIntArray newArray(long length);
+    
+    /**
+     * Copies this[srcIndex, srcIndex + count) to dest[destIndex, destIndex + count).
+     * The two ranges must not overlap.
+     */
+    default void copyTo(long srcIndex, LargeIntArray dest, long destIndex, long count) {
+        for (long i = 0; i < count; i++) {
+            dest.set(destIndex + i, get(srcIndex + i));
+        }
+    }
+    
+    /**
+     * Copies ints from a heap array into this array.
+     */
+    default void copyFrom(int[] src, int srcPos, long destIndex, int count) {
+        for (int i = 0; i < count; i++) {
+            set(destIndex + i, src[srcPos + i]);
+        }
+    }
+    
+    /**
+     * Copies ints from this array into a heap array.
+     */
+    default void copyTo(long srcIndex, int[] dest, int destPos, int count) {
+        for (int i = 0; i < count; i++) {
+            dest[destPos + i] = get(srcIndex + i);
+        }
+    }
+    
+    /**
+     * Releases the storage, if it is not left to the garbage collector.
+     * Calling close() again has no effect.
+     */
+    @Override
+    void close();
+    
+    /**
+     * Allocates a zeroed OffHeapIntArray, or returns null if it was not
+     * compiled in. It uses sun.misc.Unsafe, so it lives in offheap/ and
+     * is only part of the off-heap build (see README).
+     * @param length Number of ints
+     */
+    static LargeIntArray offHeap(long length) {
+        Class<?> offHeap;
+        try {
+            offHeap = Class.forName("OffHeapIntArray");
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        try {
+            return (LargeIntArray) offHeap.getConstructor(long.class).newInstance(length);
+        } catch (InvocationTargetException e) {
+            // IllegalArgumentException for a bad length, OutOfMemoryError from malloc
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,682 @@
+/**
+ * Quick, merge, heap, tim and radix sort for long[] arrays.
+ * Generated from PrimitiveSorts.template by PrimitiveSortGenerator; edit
+ * the template and regenerate rather than changing this file. The
+ * algorithms mirror the int versions in QuickSort, MergeSort, HeapSort,
+ * TimSort and RadixSort, without observer events.
+ */
+public final class LongSorts {
+    // Ranges larger than this use the ninther instead of median of three
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    // Tim Sort: consecutive wins before a merge enters galloping mode
+    private static final int MIN_GALLOP = 7;
+    
+    // Tim Sort: enough pending runs for any int-sized array
+    private static final int MAX_STACK = 49;
+    
+    // Tim Sort: initial size of the merge buffer, grown on demand
+    private static final int INITIAL_TMP_LENGTH = 256;
+    
+    // Radix Sort: number of bytes in a key
+    private static final int DIGITS = 8;
+    
+    private static final int QUICK = 0, MERGE = 1, HEAP = 2, TIM = 3;
+    
+    private LongSorts() {
+    }
+    
+    /**
+     * Sorts the array with introsort, as QuickSort does.
+     */
+    public static void quickSort(long[] a) {
+        sort(a, QUICK);
+    }
+    
+    /**
+     * Sorts the array with top-down merge sort, as MergeSort does.
+     */
+    public static void mergeSort(long[] a) {
+        sort(a, MERGE);
+    }
+    
+    /**
+     * Sorts the array with heap sort, as HeapSort does.
+     */
+    public static void heapSort(long[] a) {
+        sort(a, HEAP);
+    }
+    
+    /**
+     * Sorts the array with Tim Sort, as TimSort does.
+     */
+    public static void timSort(long[] a) {
+        sort(a, TIM);
+    }
+    
+    private static void sort(long[] a, int algorithm) {
+        int end = a.length;
+        if (end > 1) {
+            switch (algorithm) {
+                case QUICK:
+                    quickSort(a, 0, end - 1, 2 * QuickSort.log2(end));
+                    break;
+                case MERGE:
+                    mergeSort(a, 0, end - 1, new long[(end + 1) / 2]);
+                    break;
+                case HEAP:
+                    heapSort(a, 0, end);
+                    break;
+                default:
+                    new TimState(a).sort(0, end);
+                    break;
+            }
+        }
+    }
+    
+    // ---- Quick Sort ----
+    
+    private static void quickSort(long[] a, int low, int high, int depthLimit) {
+        while (high - low + 1 > QuickSort.INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(a, low, high + 1);
+                return;
+            }
+            depthLimit--;
+            
+            int pivotIndex = partition(a, low, high);
+            if (pivotIndex - low < high - pivotIndex) {
+                quickSort(a, low, pivotIndex - 1, depthLimit);
+                low = pivotIndex + 1;
+            } else {
+                quickSort(a, pivotIndex + 1, high, depthLimit);
+                high = pivotIndex - 1;
+            }
+        }
+        insertionSort(a, low, high);
+    }
+    
+    private static int partition(long[] a, int low, int high) {
+        swap(a, low, choosePivot(a, low, high));
+        long pivot = a[low];
+        int i = low;
+        int j = high + 1;
+        
+        while (true) {
+            while (++i < high && a[i] < pivot) {
+            }
+            while (a[--j] > pivot) {
+            }
+            if (i >= j) {
+                break;
+            }
+            swap(a, i, j);
+        }
+        
+        swap(a, low, j);
+        return j;
+    }
+    
+    private static int choosePivot(long[] a, int low, int high) {
+        int mid = low + (high - low) / 2;
+        if (high - low + 1 <= NINTHER_THRESHOLD) {
+            return medianOfThree(a, low, mid, high);
+        }
+        
+        int step = (high - low + 1) / 8;
+        int m1 = medianOfThree(a, low, low + step, low + 2 * step);
+        int m2 = medianOfThree(a, mid - step, mid, mid + step);
+        int m3 = medianOfThree(a, high - 2 * step, high - step, high);
+        return medianOfThree(a, m1, m2, m3);
+    }
+    
+    private static int medianOfThree(long[] a, int i, int j, int k) {
+        if (a[i] < a[j]) {
+            if (a[j] < a[k]) return j;
+            return a[i] < a[k] ? k : i;
+        } else {
+            if (a[k] < a[j]) return j;
+            return a[k] < a[i] ? k : i;
+        }
+    }
+    
+    private static void insertionSort(long[] a, int low, int high) {
+        for (int i = low + 1; i <= high; i++) {
+            long key = a[i];
+            int j = i - 1;
+            while (j >= low && a[j] > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+    
+    private static void swap(long[] a, int i, int j) {
+        long temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+    
+    // ---- Merge Sort ----
+    
+    private static void mergeSort(long[] a, int left, int right, long[] buffer) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            mergeSort(a, left, mid, buffer);
+            mergeSort(a, mid + 1, right, buffer);
+            merge(a, left, mid, right, buffer);
+        }
+    }
+    
+    /**
+     * Merges a[left, mid] and a[mid + 1, right], copying only the left half.
+     */
+    private static void merge(long[] a, int left, int mid, int right, long[] buffer) {
+        int n1 = mid - left + 1;
+        System.arraycopy(a, left, buffer, 0, n1);
+        
+        int i = 0, j = mid + 1;
+        int k = left;
+        while (i < n1 && j <= right) {
+            if (buffer[i] <= a[j]) {
+                a[k++] = buffer[i++];
+            } else {
+                a[k++] = a[j++];
+            }
+        }
+        System.arraycopy(buffer, i, a, k, n1 - i);
+    }
+    
+    // ---- Heap Sort ----
+    
+    private static void heapSort(long[] a, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDown(a, from, n, i, a[from + i]);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            long last = a[from + i];
+            a[from + i] = a[from];
+            siftDown(a, from, i, 0, last);
+        }
+    }
+    
+    private static void siftDown(long[] a, int from, int n, int i, long value) {
+        // Bounded by the last parent, so the child index never overflows on huge heaps
+        int lastParent = (n - 2) >> 1;
+        while (i <= lastParent) {
+            int child = 2 * i + 1;
+            long childValue = a[from + child];
+            if (child + 1 < n && a[from + child + 1] > childValue) {
+                child++;
+                childValue = a[from + child];
+            }
+            if (childValue <= value) {
+                break;
+            }
+            a[from + i] = childValue;
+            i = child;
+        }
+        a[from + i] = value;
+    }
+    
+    // ---- Tim Sort ----
+    
+    /**
+     * State of one Tim Sort: the array, the merge buffer and the stack of
+     * pending runs.
+     */
+    private static final class TimState {
+        private final long[] a;
+        private long[] tmp;
+        private int minGallop = MIN_GALLOP;
+        private final int[] runBase = new int[MAX_STACK];
+        private final int[] runLen = new int[MAX_STACK];
+        private int stackSize;
+        
+        TimState(long[] a) {
+            this.a = a;
+            this.tmp = new long[Math.min(INITIAL_TMP_LENGTH, a.length >>> 1)];
+        }
+        
+        void sort(int lo, int hi) {
+            int remaining = hi - lo;
+            int minRun = TimSort.minRunLength(remaining);
+            do {
+                // Extend short runs to minRun with binary insertion sort
+                int length = countRunAndMakeAscending(lo, hi);
+                if (length < minRun) {
+                    int force = Math.min(remaining, minRun);
+                    binarySort(lo, lo + force, lo + length);
+                    length = force;
+                }
+                
+                runBase[stackSize] = lo;
+                runLen[stackSize] = length;
+                stackSize++;
+                mergeCollapse();
+                
+                lo += length;
+                remaining -= length;
+            } while (remaining != 0);
+            
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] < runLen[n + 1]) n--;
+                mergeAt(n);
+            }
+        }
+        
+        /**
+         * Returns the length of the run starting at lo, reversing it if it descends.
+         */
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) {
+                return 1;
+            }
+            if (a[runHi++] < a[lo]) {
+                while (runHi < hi && a[runHi] < a[runHi - 1]) runHi++;
+                for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+                    swap(a, i, j);
+                }
+            } else {
+                while (runHi < hi && a[runHi] >= a[runHi - 1]) runHi++;
+            }
+            return runHi - lo;
+        }
+        
+        /**
+         * Sorts a[lo, hi) by binary insertion, given that a[lo, start) is sorted.
+         */
+        private void binarySort(int lo, int hi, int start) {
+            for (; start < hi; start++) {
+                long pivot = a[start];
+                int left = lo;
+                int right = start;
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    if (pivot < a[mid]) {
+                        right = mid;
+                    } else {
+                        left = mid + 1;
+                    }
+                }
+                System.arraycopy(a, left, a, left + 1, start - left);
+                a[left] = pivot;
+            }
+        }
+        
+        /**
+         * Merges runs until the stack invariants hold again.
+         */
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                        || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                    if (runLen[n - 1] < runLen[n + 1]) n--;
+                } else if (runLen[n] > runLen[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+        
+        /**
+         * Merges the runs at stack positions i and i + 1.
+         */
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int len1 = runLen[i];
+            int base2 = runBase[i + 1];
+            int len2 = runLen[i + 1];
+            
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+            
+            // Elements of run 1 already before run 2, and of run 2 already after run 1, stay put
+            int k = gallopRight(a[base2], a, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) {
+                return;
+            }
+            len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+            if (len2 == 0) {
+                return;
+            }
+            
+            if (len1 <= len2) {
+                mergeLo(base1, len1, base2, len2);
+            } else {
+                mergeHi(base1, len1, base2, len2);
+            }
+        }
+        
+        /**
+         * Merges two adjacent runs left to right, buffering the shorter first run.
+         */
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            long[] a = this.a;
+            long[] tmp = ensureCapacity(len1);
+            System.arraycopy(a, base1, tmp, 0, len1);
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+            
+            a[dest++] = a[cursor2++];
+            if (--len2 == 0) {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+                return;
+            }
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+                return;
+            }
+            
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                
+                // One element at a time until one run keeps winning
+                do {
+                    if (a[cursor2] < tmp[cursor1]) {
+                        a[dest++] = a[cursor2++];
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 0) break outer;
+                    } else {
+                        a[dest++] = tmp[cursor1++];
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 1) break outer;
+                    }
+                } while ((count1 | count2) < minGallop);
+                
+                // Galloping mode: copy whole stretches found by exponential search
+                do {
+                    count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(tmp, cursor1, a, dest, count1);
+                        dest += count1;
+                        cursor1 += count1;
+                        len1 -= count1;
+                        if (len1 <= 1) break outer;
+                    }
+                    a[dest++] = a[cursor2++];
+                    if (--len2 == 0) break outer;
+                    
+                    count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, cursor2, a, dest, count2);
+                        dest += count2;
+                        cursor2 += count2;
+                        len2 -= count2;
+                        if (len2 == 0) break outer;
+                    }
+                    a[dest++] = tmp[cursor1++];
+                    if (--len1 == 1) break outer;
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                if (minGallop < 0) minGallop = 0;
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(1, minGallop);
+            
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+            } else {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+            }
+        }
+        
+        /**
+         * Merges two adjacent runs right to left, buffering the shorter second run.
+         */
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            long[] a = this.a;
+            long[] tmp = ensureCapacity(len2);
+            System.arraycopy(a, base2, tmp, 0, len2);
+            int cursor1 = base1 + len1 - 1;
+            int cursor2 = len2 - 1;
+            int dest = base2 + len2 - 1;
+            
+            a[dest--] = a[cursor1--];
+            if (--len1 == 0) {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+                return;
+            }
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+                return;
+            }
+            
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                
+                do {
+                    if (tmp[cursor2] < a[cursor1]) {
+                        a[dest--] = a[cursor1--];
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 0) break outer;
+                    } else {
+                        a[dest--] = tmp[cursor2--];
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 1) break outer;
+                    }
+                } while ((count1 | count2) < minGallop);
+                
+                do {
+                    count1 = len1 - gallopRight(tmp[cursor2], a, base1, len1, len1 - 1);
+                    if (count1 != 0) {
+                        dest -= count1;
+                        cursor1 -= count1;
+                        len1 -= count1;
+                        System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                        if (len1 == 0) break outer;
+                    }
+                    a[dest--] = tmp[cursor2--];
+                    if (--len2 == 1) break outer;
+                    
+                    count2 = len2 - gallopLeft(a[cursor1], tmp, 0, len2, len2 - 1);
+                    if (count2 != 0) {
+                        dest -= count2;
+                        cursor2 -= count2;
+                        len2 -= count2;
+                        System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                        if (len2 <= 1) break outer;
+                    }
+                    a[dest--] = a[cursor1--];
+                    if (--len1 == 0) break outer;
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                if (minGallop < 0) minGallop = 0;
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(1, minGallop);
+            
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+            } else {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+            }
+        }
+        
+        private long[] ensureCapacity(int minCapacity) {
+            if (tmp.length < minCapacity) {
+                tmp = new long[Math.max(minCapacity, Math.min(a.length >>> 1, tmp.length * 2))];
+            }
+            return tmp;
+        }
+        
+        /**
+         * Returns where key would be inserted into the sorted a[base, base + len),
+         * before any equal elements, searching outwards from base + hint.
+         */
+        private static int gallopLeft(long key, long[] a, int base, int len, int hint) {
+            int lastOfs = 0;
+            int ofs = 1;
+            if (key > a[base + hint]) {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && key > a[base + hint + ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            } else {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && key <= a[base + hint - ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int temp = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - temp;
+            }
+            
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (key > a[base + m]) {
+                    lastOfs = m + 1;
+                } else {
+                    ofs = m;
+                }
+            }
+            return ofs;
+        }
+        
+        /**
+         * Like gallopLeft, but returns the position after any equal elements.
+         */
+        private static int gallopRight(long key, long[] a, int base, int len, int hint) {
+            int lastOfs = 0;
+            int ofs = 1;
+            if (key < a[base + hint]) {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && key < a[base + hint - ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                int temp = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - temp;
+            } else {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && key >= a[base + hint + ofs]) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) ofs = maxOfs;
+                }
+                if (ofs > maxOfs) ofs = maxOfs;
+                lastOfs += hint;
+                ofs += hint;
+            }
+            
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (key < a[base + m]) {
+                    ofs = m;
+                } else {
+                    lastOfs = m + 1;
+                }
+            }
+            return ofs;
+        }
+    }
+    
+    // ---- Radix Sort ----
+    
+    /**
+     * Sorts the array with LSD radix sort, one byte per pass, as RadixSort does.
+     */
+    public static void radixSort(long[] a) {
+        int n = a.length;
+        if (n < 2) {
+            return;
+        }
+        
+        // Histograms of every digit in one pass
+        int[] counts = new int[DIGITS * RadixSort.RADIX];
+        for (int i = 0; i < n; i++) {
+            long key = key(a[i]);
+            for (int d = 0; d < DIGITS; d++) {
+                counts[d * RadixSort.RADIX + digit(key, d)]++;
+            }
+        }
+        
+        long[] src = a;
+        long[] dst = new long[n];
+        for (int d = 0; d < DIGITS; d++) {
+            int base = d * RadixSort.RADIX;
+            
+            // Every key has the same digit here, the pass would not move anything
+            if (counts[base + digit(key(src[0]), d)] == n) {
+                continue;
+            }
+            
+            int offset = 0;
+            for (int b = base; b < base + RadixSort.RADIX; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            
+            for (int i = 0; i < n; i++) {
+                long value = src[i];
+                dst[counts[base + digit(key(value), d)]++] = value;
+            }
+            
+            long[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+        
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+    
+    /**
+     * Returns byte d of the key, counting from the least significant.
+     */
+    private static int digit(long key, int d) {
+        return (int) (key >>> (d * RadixSort.RADIX_BITS)) & (RadixSort.RADIX - 1);
+    }
+    
+    /**
+     * Maps a value to an unsigned key with the same order.
+     */
+    private static long key(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+}
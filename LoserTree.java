@@ -0,0 +1,124 @@
+/**
+ * Loser tree (tournament tree) for merging k sorted sources of ints.
+ * Each internal node remembers the loser of the match played there and
+ * the overall winner sits at the root, so replacing the winner's key
+ * replays only the log2(k) matches on its path to the root, one
+ * comparison per level. Nodes hold the key packed with its source,
+ * (key << 32) | source, so a match is one load and one long comparison,
+ * and ties go to the lower source index, which keeps merges stable.
+ * An exhausted source sets bit 31 of the low word, which no real entry
+ * has, so it loses to every key. The tree only tracks keys; the caller
+ * owns the sources.
+ */
+public final class LoserTree {
+    // Packed entry of an exhausted source, above every real entry; the source goes in the low bits
+    private static final long EXHAUSTED = (long) Integer.MAX_VALUE << 32 | 0x8000_0000L;
+    private static final long SOURCE_MASK = 0x7FFF_FFFFL;
+    
+    private final int k;
+    private final long[] tree; // tree[0] is the winner, tree[1..k-1] the losers
+    private final long[] leaves; // first entries, set before build()
+    
+    /**
+     * Creates a tree for k sources. Set every source's first key (or mark
+     * it exhausted), then call build().
+     * @param k Number of sources
+     */
+    public LoserTree(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.tree = new long[k];
+        this.leaves = new long[k];
+    }
+    
+    /**
+     * Sets the current key of a source before the tree is built.
+     */
+    public void set(int source, int key) {
+        leaves[source] = (long) key << 32 | source;
+    }
+    
+    /**
+     * Marks a source as having no keys before the tree is built.
+     */
+    public void setExhausted(int source) {
+        leaves[source] = EXHAUSTED | source;
+    }
+    
+    /**
+     * Plays the initial tournament bottom-up. Node i has children 2i and
+     * 2i + 1, and node k + s is the leaf of source s.
+     */
+    public void build() {
+        if (k == 1) {
+            tree[0] = leaves[0];
+            return;
+        }
+        long[] winners = new long[k];
+        for (int node = k - 1; node > 0; node--) {
+            long left = entry(2 * node, winners);
+            long right = entry(2 * node + 1, winners);
+            winners[node] = Math.min(left, right);
+            tree[node] = Math.max(left, right);
+        }
+        tree[0] = winners[1];
+    }
+    
+    private long entry(int node, long[] winners) {
+        return node >= k ? leaves[node - k] : winners[node];
+    }
+    
+    /**
+     * Returns true once every source is exhausted.
+     */
+    public boolean isEmpty() {
+        return tree[0] >= EXHAUSTED;
+    }
+    
+    /**
+     * Returns the source holding the smallest current key.
+     */
+    public int winner() {
+        return (int) (tree[0] & SOURCE_MASK);
+    }
+    
+    /**
+     * Returns the smallest current key.
+     */
+    public int winnerKey() {
+        return (int) (tree[0] >> 32);
+    }
+    
+    /**
+     * Replaces the winner's key with the next key from the same source.
+     */
+    public void replaceWinner(int key) {
+        int source = winner();
+        replay(source, (long) key << 32 | source);
+    }
+    
+    /**
+     * Marks the winner's source as exhausted.
+     */
+    public void exhaustWinner() {
+        int source = winner();
+        replay(source, EXHAUSTED | source);
+    }
+    
+    /**
+     * Replays the matches from a source's leaf up to the root.
+     */
+    private void replay(int source, long entry) {
+        long winner = entry;
+        for (int node = (source + k) >>> 1; node > 0; node >>>= 1) {
+            long loser = tree[node];
+            if (loser < winner) {
+                tree[node] = winner;
+                winner = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+}
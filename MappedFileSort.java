@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Sorts a file of ints in place through memory mappings.
+ * The file is mapped read-write in segments of 2^28 ints (1 GB), since one
+ * MappedByteBuffer cannot exceed 2 GB, and Quick Sort or Heap Sort runs
+ * directly on the SegmentedIntArray over them. Nothing is copied to the
+ * heap and the OS pages the file in and out as the sort touches it, so
+ * a multi-GB file is sorted in place. Best for files that fit in the
+ * page cache; much larger ones are better served by ExternalSort, whose
+ * access pattern is sequential.
+ *
+ * Files hold raw 32-bit big-endian ints, as written by DataOutputStream.
+ *
+ * Usage:
+ *   java MappedFileSort keys.bin [--sorter "Heap Sort"]
+ */
+public final class MappedFileSort {
+    private MappedFileSort() {
+    }
+    
+    /**
+     * Sorts the file in place with Quick Sort.
+     */
+    public static void sort(Path file) throws IOException {
+        sort(file, QuickSort::sort);
+    }
+    
+    /**
+     * Sorts the file in place.
+     * @param file The file of ints to sort
+     * @param sorter In-place sort over a LargeIntArray, e.g. QuickSort::sort or HeapSort::sort
+     */
+    public static void sort(Path file, Consumer<LargeIntArray> sorter) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            SegmentedIntArray mapped;
+            try {
+                mapped = SegmentedIntArray.map(channel);
+            } catch (IOException e) {
+                throw new IOException(file + ": " + e.getMessage(), e);
+            }
+            sorter.accept(mapped);
+            
+            // Write the dirty pages back before reporting success
+            mapped.force();
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && !(args.length == 3 && args[1].equals("--sorter"))) {
+            System.err.println("Usage: java MappedFileSort keys.bin [--sorter \"Quick Sort\"|\"Heap Sort\"]");
+            System.exit(1);
+        }
+        Path file = Paths.get(args[0]);
+        Consumer<LargeIntArray> sorter = QuickSort::sort;
+        if (args.length == 3) {
+            if (args[2].equalsIgnoreCase("Heap Sort")) {
+                sorter = HeapSort::sort;
+            } else if (!args[2].equalsIgnoreCase("Quick Sort")) {
+                throw new IllegalArgumentException("Unknown sorter " + args[2]);
+            }
+        }
+        
+        long start = System.nanoTime();
+        sort(file, sorter);
+        System.out.printf("Sorted %,d ints in %.1f s%n",
+                Files.size(file) / Integer.BYTES, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -1,100 +1,299 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
 /**
  * Merge Sort implementation.
+ * Also sorts LargeIntArrays (e.g. OffHeapIntArrays) with a buffer of the
+ * same kind freed after the sort,
+ * and object arrays and lists with a Comparator or a primitive key.
+ * Given SortKernels, it sorts headless with their small-block sort and
+ * merge instead, e.g. the vectorized ones.
  * Time Complexity: O(n log n)
  * Space Complexity: O(n)
  */
 public class MergeSort implements Sorter {
+    private final SortKernels kernels; // null for the visualized merge
+    
+    /**
+     * Creates a merge sort with the visualized merge.
+     */
+    public MergeSort() {
+        this(null);
+    }
+    
+    /**
+     * Creates a headless merge sort that merges and sorts small ranges
+     * with the given kernels.
+     * @param kernels The kernels, e.g. SortKernels.vector(), or null for the visualized merge
+     */
+    public MergeSort(SortKernels kernels) {
+        this.kernels = kernels;
+    }
     
     @Override
-    public void sort(int[] array, Visualizer v) {
-        mergeSort(array, 0, array.length - 1, v);
+    public void sort(int[] array, SortObserver v) {
+        sort(array, ScratchBuffer.get((array.length + 1) / 2), v);
+    }
+    
+    /**
+     * Sorts the array using a caller-supplied scratch buffer.
+     * @param array The array to sort
+     * @param buffer Scratch space holding at least half of the array (rounded up)
+     * @param v The observer notified of the sorting progress
+     */
+    public void sort(int[] array, int[] buffer, SortObserver v) {
+        if (buffer.length < (array.length + 1) / 2) {
+            throw new IllegalArgumentException("buffer too small: " + buffer.length);
+        }
+        if (kernels != null) {
+            mergeSort(array, 0, array.length, buffer, kernels);
+            
+            // The kernels move whole blocks at a time, so only the result is reported
+            for (int i = 0; i < array.length; i++) {
+                v.updateValue(i, array[i]);
+            }
+        } else {
+            mergeSort(array, 0, array.length - 1, buffer, v);
+        }
         v.markAllSorted();
     }
     
+    /**
+     * Merge sort of array[from, to) on the kernels.
+     */
+    private static void mergeSort(int[] array, int from, int to, int[] buffer, SortKernels kernels) {
+        if (to - from <= SortKernels.BLOCK) {
+            kernels.sortBlock(array, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(array, from, mid, buffer, kernels);
+        mergeSort(array, mid, to, buffer, kernels);
+        kernels.merge(array, from, mid, to, buffer);
+    }
+    
     /**
      * Recursive merge sort implementation.
      */
-    private void mergeSort(int[] array, int left, int right, Visualizer v) {
+    private void mergeSort(int[] array, int left, int right, int[] buffer, SortObserver v) {
         if (left < right) {
             int mid = left + (right - left) / 2;
             
             // Sort first and second halves
-            mergeSort(array, left, mid, v);
-            mergeSort(array, mid + 1, right, v);
+            mergeSort(array, left, mid, buffer, v);
+            mergeSort(array, mid + 1, right, buffer, v);
             
             // Merge the sorted halves
-            merge(array, left, mid, right, v);
+            merge(array, left, mid, right, buffer, v);
         }
     }
     
     /**
      * Merges two sorted subarrays.
+     * Only the left half is copied to the buffer; the right half is
+     * merged in place since it is never overwritten before it is read.
      */
-    private void merge(int[] array, int left, int mid, int right, Visualizer v) {
-        // Calculate sizes of subarrays
+    private void merge(int[] array, int left, int mid, int right, int[] buffer, SortObserver v) {
+        // Calculate size of the left subarray
         int n1 = mid - left + 1;
-        int n2 = right - mid;
         
-        // Create temporary arrays
-        int[] leftArray = new int[n1];
-        int[] rightArray = new int[n2];
-        
-        // Copy data to temporary arrays
-        for (int i = 0; i < n1; i++) {
-            leftArray[i] = array[left + i];
-        }
-        for (int j = 0; j < n2; j++) {
-            rightArray[j] = array[mid + 1 + j];
-        }
+        // Copy the left half to the buffer
+        System.arraycopy(array, left, buffer, 0, n1);
         
-        // Merge the temporary arrays back
-        int i = 0, j = 0;
+        // Merge the buffer and the right half back
+        int i = 0, j = mid + 1;
         int k = left;
         
-        while (i < n1 && j < n2) {
+        while (i < n1 && j <= right) {
             // Highlight the elements being compared
-            v.highlight(left + i, mid + 1 + j);
+            v.highlight(left + i, j);
             v.sleep();
             
-            if (leftArray[i] <= rightArray[j]) {
-                array[k] = leftArray[i];
-                v.updateValue(k, leftArray[i]);
+            if (buffer[i] <= array[j]) {
+                array[k] = buffer[i];
+                v.updateValue(k, buffer[i]);
                 i++;
             } else {
-                array[k] = rightArray[j];
-                v.updateValue(k, rightArray[j]);
+                array[k] = array[j];
+                v.updateValue(k, array[j]);
                 j++;
             }
             k++;
             v.sleep();
         }
         
-        // Copy remaining elements of leftArray
+        // Copy remaining elements of the left half
         while (i < n1) {
-            array[k] = leftArray[i];
-            v.updateValue(k, leftArray[i]);
+            array[k] = buffer[i];
+            v.updateValue(k, buffer[i]);
             v.highlight(k, -1);
             v.sleep();
             i++;
             k++;
         }
         
-        // Copy remaining elements of rightArray
-        while (j < n2) {
-            array[k] = rightArray[j];
-            v.updateValue(k, rightArray[j]);
-            v.highlight(k, -1);
-            v.sleep();
-            j++;
-            k++;
+        // Remaining elements of the right half are already in place
+        v.clearHighlight();
+    }
+    
+    /**
+     * Sorts a long-indexed array, using a buffer of half its length
+     * allocated with newArray (off-heap for an OffHeapIntArray) and
+     * freed after the sort.
+     */
+    public static void sort(LargeIntArray array) {
+        long n = array.length();
+        if (n > 1) {
+            try (LargeIntArray buffer = array.newArray((n + 1) / 2)) {
+                mergeSort(array, 0, n - 1, buffer);
+            }
+        }
+    }
+    
+    private static void mergeSort(LargeIntArray array, long left, long right, LargeIntArray buffer) {
+        if (left < right) {
+            long mid = left + (right - left) / 2;
+            mergeSort(array, left, mid, buffer);
+            mergeSort(array, mid + 1, right, buffer);
+            merge(array, left, mid, right, buffer);
         }
+    }
+    
+    /**
+     * Merges array[left, mid] and array[mid + 1, right], copying only the left half.
+     */
+    private static void merge(LargeIntArray array, long left, long mid, long right, LargeIntArray buffer) {
+        long n1 = mid - left + 1;
+        array.copyTo(left, buffer, 0, n1);
         
-        v.clearHighlight();
+        long i = 0, j = mid + 1;
+        long k = left;
+        while (i < n1 && j <= right) {
+            int a = buffer.get(i);
+            int b = array.get(j);
+            if (a <= b) {
+                array.set(k++, a);
+                i++;
+            } else {
+                array.set(k++, b);
+                j++;
+            }
+        }
+        if (i < n1) {
+            buffer.copyTo(i, array, k, n1 - i);
+        }
+    }
+    
+    /**
+     * Returns the permutation that sorts keys, so that keys[order[0]],
+     * keys[order[1]], ... is ascending. The keys are not modified.
+     * Equal keys keep their input order.
+     */
+    public static int[] argsort(int[] keys) {
+        return Permutations.argsort(keys, LongSorts::mergeSort);
+    }
+    
+    /**
+     * Sorts keys and moves the elements of every payload array (row ids,
+     * offsets, ...) along with their keys. Use argsort and
+     * Permutations.apply for payloads of other types.
+     */
+    public static void coSort(int[] keys, int[]... payloads) {
+        Permutations.coSort(keys, payloads, LongSorts::mergeSort);
+    }
+    
+    /**
+     * Sorts the array with the comparator. Equal elements keep their order.
+     */
+    public static <T> void sort(T[] array, Comparator<? super T> c) {
+        if (array.length > 1) {
+            mergeSort(array, 0, array.length - 1, new Object[(array.length + 1) / 2], c);
+        }
+    }
+    
+    /**
+     * Sorts the list with the comparator. Equal elements keep their order.
+     */
+    public static <T> void sort(List<T> list, Comparator<? super T> c) {
+        Permutations.sortList(list, array -> sort(array, c));
+    }
+    
+    /**
+     * Sorts the array by an int key, extracted once per element. Equal
+     * keys keep their order. Much faster than a comparator on large arrays,
+     * since the sort itself only compares primitives.
+     */
+    public static <T> void sortByInt(T[] array, ToIntFunction<? super T> key) {
+        Permutations.sortByInt(array, key, LongSorts::mergeSort);
+    }
+    
+    /**
+     * Sorts the array by a long key, extracted once per element. Equal
+     * keys keep their order.
+     */
+    public static <T> void sortByLong(T[] array, ToLongFunction<? super T> key) {
+        Permutations.sortByLong(array, key);
+    }
+    
+    private static <T> void mergeSort(T[] array, int left, int right, Object[] buffer, Comparator<? super T> c) {
+        if (left < right) {
+            int mid = left + (right - left) / 2;
+            mergeSort(array, left, mid, buffer, c);
+            mergeSort(array, mid + 1, right, buffer, c);
+            merge(array, left, mid, right, buffer, c);
+        }
+    }
+    
+    /**
+     * Merges array[left, mid] and array[mid + 1, right], copying only the left half.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(T[] array, int left, int mid, int right, Object[] buffer,
+                                  Comparator<? super T> c) {
+        int n1 = mid - left + 1;
+        System.arraycopy(array, left, buffer, 0, n1);
+        
+        int i = 0, j = mid + 1;
+        int k = left;
+        while (i < n1 && j <= right) {
+            if (c.compare((T) buffer[i], array[j]) <= 0) {
+                array[k++] = (T) buffer[i++];
+            } else {
+                array[k++] = array[j++];
+            }
+        }
+        System.arraycopy(buffer, i, array, k, n1 - i);
+    }
+    
+    /*
+     * Primitive specializations, generated from PrimitiveSorts.template.
+     * Doubles and floats sort like Arrays.sort: -0.0 before 0.0, NaN last.
+     */
+    public static void sort(long[] array) {
+        LongSorts.mergeSort(array);
+    }
+    
+    public static void sort(double[] array) {
+        DoubleSorts.mergeSort(array);
+    }
+    
+    public static void sort(float[] array) {
+        FloatSorts.mergeSort(array);
+    }
+    
+    public static void sort(short[] array) {
+        ShortSorts.mergeSort(array);
+    }
+    
+    public static void sort(char[] array) {
+        CharSorts.mergeSort(array);
     }
     
     @Override
     public String getName() {
-        return "Merge Sort";
+        return kernels == null ? "Merge Sort" : "Merge Sort (" + kernels.getName() + " kernels)";
     }
     
     @Override
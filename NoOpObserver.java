@@ -0,0 +1,40 @@
+/**
+ * A SortObserver that ignores every event.
+ * Use it to run any Sorter headless; the empty methods are inlined
+ * away by the JIT, so no Swing classes are loaded and no time is spent
+ * on repaints or sleeping.
+ */
+public final class NoOpObserver implements SortObserver {
+    public static final NoOpObserver INSTANCE = new NoOpObserver();
+    
+    private NoOpObserver() {
+    }
+    
+    @Override
+    public void highlight(int i, int j) {
+    }
+    
+    @Override
+    public void clearHighlight() {
+    }
+    
+    @Override
+    public void updateValue(int index, int value) {
+    }
+    
+    @Override
+    public void swap(int i, int j) {
+    }
+    
+    @Override
+    public void markSorted(int index) {
+    }
+    
+    @Override
+    public void markAllSorted() {
+    }
+    
+    @Override
+    public void sleep() {
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel Counting Sort implementation using a ForkJoinPool.
+ * Every worker finds the minimum and maximum of its own chunk of the
+ * input and then counts that chunk into its own histogram, so no counter
+ * is shared between threads. The histograms are merged at the end, one
+ * slice of the value range per task, and the array is rewritten from the
+ * merged counts in slices of equal output length. The per-thread counts
+ * together are kept no larger than the input; wider ranges go to
+ * Parallel Sample Sort.
+ * Time Complexity: O(n + k), k = max - min + 1
+ * Space Complexity: O(k) per thread
+ */
+public class ParallelCountingSort implements Sorter {
+    // Below this size the overhead of forking outweighs the parallel speedup
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    
+    private final ForkJoinPool pool;
+    
+    /**
+     * Creates a parallel counting sort running in the common pool.
+     */
+    public ParallelCountingSort() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a parallel counting sort running in the given pool.
+     * @param pool The pool running the subtasks
+     */
+    public ParallelCountingSort(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n >= SEQUENTIAL_THRESHOLD && pool.getParallelism() > 1) {
+            parallelSort(array);
+        } else {
+            new CountingSort().sort(array, NoOpObserver.INSTANCE);
+        }
+        
+        // The work is spread over several threads, so only the result is reported
+        for (int i = 0; i < n; i++) {
+            v.updateValue(i, array[i]);
+        }
+        v.markAllSorted();
+    }
+    
+    private void parallelSort(int[] array) {
+        int n = array.length;
+        int chunks = pool.getParallelism();
+        int chunkSize = (n + chunks - 1) / chunks;
+        
+        // Per-chunk min and max
+        int[] mins = new int[chunks];
+        int[] maxs = new int[chunks];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            final int from = Math.min(n, c * chunkSize);
+            final int to = Math.min(n, from + chunkSize);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+                for (int i = from; i < to; i++) {
+                    if (array[i] < min) min = array[i];
+                    if (array[i] > max) max = array[i];
+                }
+                mins[chunk] = min;
+                maxs[chunk] = max;
+            }));
+        }
+        invokeAll(tasks);
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (int c = 0; c < chunks; c++) {
+            min = Math.min(min, mins[c]);
+            max = Math.max(max, maxs[c]);
+        }
+        
+        long range = (long) max - min + 1;
+        if (!CountingSort.fits(range * chunks, n)) {
+            new ParallelSampleSort(pool).sort(array, NoOpObserver.INSTANCE);
+            return;
+        }
+        
+        // Per-chunk histograms: how many times chunk c holds min + j
+        int k = (int) range;
+        int[][] counts = new int[chunks][k];
+        tasks.clear();
+        for (int c = 0; c < chunks; c++) {
+            final int[] histogram = counts[c];
+            final int from = Math.min(n, c * chunkSize);
+            final int to = Math.min(n, from + chunkSize);
+            final int base = min;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int i = from; i < to; i++) {
+                    histogram[array[i] - base]++;
+                }
+            }));
+        }
+        invokeAll(tasks);
+        
+        // Merge the histograms into the first, one slice of the value range per task
+        int[] ends = counts[0];
+        int sliceSize = (k + chunks - 1) / chunks;
+        tasks.clear();
+        for (int c = 0; c < chunks; c++) {
+            final int from = Math.min(k, c * sliceSize);
+            final int to = Math.min(k, from + sliceSize);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int h = 1; h < chunks; h++) {
+                    int[] histogram = counts[h];
+                    for (int j = from; j < to; j++) {
+                        ends[j] += histogram[j];
+                    }
+                }
+            }));
+        }
+        invokeAll(tasks);
+        
+        // Turn counts into end offsets
+        for (int j = 1; j < k; j++) {
+            ends[j] += ends[j - 1];
+        }
+        
+        // Rewrite the array in slices of equal output length
+        tasks.clear();
+        for (int c = 0; c < chunks; c++) {
+            final int from = Math.min(n, c * chunkSize);
+            final int to = Math.min(n, from + chunkSize);
+            final int base = min;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                // The first value whose copies end after from
+                int j = upperBound(ends, from);
+                for (int i = from; i < to; j++) {
+                    int end = Math.min(to, ends[j]);
+                    Arrays.fill(array, i, end, base + j);
+                    i = end;
+                }
+            }));
+        }
+        invokeAll(tasks);
+    }
+    
+    /**
+     * Returns the index of the first offset greater than key.
+     */
+    private static int upperBound(int[] offsets, int key) {
+        int low = 0;
+        int high = offsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Runs the tasks in the pool and waits for all of them.
+     */
+    private void invokeAll(List<ForkJoinTask<?>> tasks) {
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+    
+    @Override
+    public String getName() {
+        return "Parallel Counting Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n + k)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(k)";
+    }
+}
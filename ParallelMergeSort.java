@@ -0,0 +1,254 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel Merge Sort implementation using a ForkJoinPool.
+ * Ranges larger than the threshold are split into subtasks, and the
+ * merge step itself is split by binary search so the top levels of the
+ * recursion also run in parallel. A single buffer of size n is allocated
+ * per sort and the two arrays swap roles at each level (ping-pong).
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(n)
+ */
+public class ParallelMergeSort implements Sorter {
+    private static final int DEFAULT_THRESHOLD = 8192;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Creates a parallel merge sort running in the common pool.
+     */
+    public ParallelMergeSort() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a parallel merge sort running in the given pool.
+     * @param pool The pool running the subtasks
+     */
+    public ParallelMergeSort(ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * Creates a parallel merge sort.
+     * @param pool The pool running the subtasks
+     * @param threshold Ranges at or below this size are sorted and merged
+     *                  sequentially; at least 2, so that every split of a
+     *                  merge leaves both halves smaller
+     */
+    public ParallelMergeSort(ForkJoinPool pool, int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n > 1) {
+            int[] buffer = array.clone();
+            pool.invoke(new SortTask(buffer, array, 0, n, threshold));
+        }
+
+        // The work is spread over several threads, so only the result is reported
+        for (int i = 0; i < n; i++) {
+            v.updateValue(i, array[i]);
+        }
+        v.markAllSorted();
+    }
+
+    /**
+     * Sorts src[low, high) into dst[low, high).
+     * Both arrays must hold the same values in that range on entry;
+     * src is used as scratch space.
+     */
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int low;
+        private final int high;
+        private final int threshold;
+
+        SortTask(int[] src, int[] dst, int low, int high, int threshold) {
+            this.src = src;
+            this.dst = dst;
+            this.low = low;
+            this.high = high;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low <= threshold) {
+                sequentialSort(src, dst, low, high);
+                return;
+            }
+
+            int mid = (low + high) >>> 1;
+
+            // Sort both halves into src, then merge them back into dst
+            invokeAll(new SortTask(dst, src, low, mid, threshold),
+                      new SortTask(dst, src, mid, high, threshold));
+            new MergeTask(src, low, mid, mid, high, dst, low, threshold).compute();
+        }
+    }
+
+    /**
+     * Merges the sorted runs src[low1, high1) and src[low2, high2)
+     * into dst starting at index out.
+     */
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int low1;
+        private final int high1;
+        private final int low2;
+        private final int high2;
+        private final int[] dst;
+        private final int out;
+        private final int threshold;
+
+        MergeTask(int[] src, int low1, int high1, int low2, int high2,
+                  int[] dst, int out, int threshold) {
+            this.src = src;
+            this.low1 = low1;
+            this.high1 = high1;
+            this.low2 = low2;
+            this.high2 = high2;
+            this.dst = dst;
+            this.out = out;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int len1 = high1 - low1;
+            int len2 = high2 - low2;
+            if (len1 + len2 <= threshold) {
+                merge(src, low1, high1, low2, high2, dst, out);
+                return;
+            }
+
+            // Split the longer run in half and find the matching split in the other run.
+            // Equal keys from the first run stay in front to keep the merge stable.
+            int split1, split2;
+            if (len1 >= len2) {
+                split1 = (low1 + high1) >>> 1;
+                split2 = lowerBound(src, low2, high2, src[split1]);
+            } else {
+                split2 = (low2 + high2) >>> 1;
+                split1 = upperBound(src, low1, high1, src[split2]);
+            }
+
+            int outSplit = out + (split1 - low1) + (split2 - low2);
+            invokeAll(new MergeTask(src, low1, split1, low2, split2, dst, out, threshold),
+                      new MergeTask(src, split1, high1, split2, high2, dst, outSplit, threshold));
+        }
+    }
+
+    /**
+     * Sequential ping-pong merge sort of src[low, high) into dst[low, high).
+     */
+    private static void sequentialSort(int[] src, int[] dst, int low, int high) {
+        if (high - low <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(dst, low, high);
+            return;
+        }
+
+        int mid = (low + high) >>> 1;
+        sequentialSort(dst, src, low, mid);
+        sequentialSort(dst, src, mid, high);
+
+        // Halves are already in order, no merge needed
+        if (src[mid - 1] <= src[mid]) {
+            System.arraycopy(src, low, dst, low, high - low);
+            return;
+        }
+        merge(src, low, mid, mid, high, dst, low);
+    }
+
+    /**
+     * Insertion sort for array[low, high).
+     */
+    private static void insertionSort(int[] array, int low, int high) {
+        for (int i = low + 1; i < high; i++) {
+            int key = array[i];
+            int j = i - 1;
+            while (j >= low && array[j] > key) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = key;
+        }
+    }
+
+    /**
+     * Sequential merge of src[low1, high1) and src[low2, high2) into dst at out.
+     */
+    private static void merge(int[] src, int low1, int high1, int low2, int high2,
+                              int[] dst, int out) {
+        int i = low1, j = low2, k = out;
+        while (i < high1 && j < high2) {
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+        System.arraycopy(src, i, dst, k, high1 - i);
+        System.arraycopy(src, j, dst, k + (high1 - i), high2 - j);
+    }
+
+    /**
+     * Returns the first index in array[low, high) whose value is not less than key.
+     */
+    private static int lowerBound(int[] array, int low, int high, int key) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first index in array[low, high) whose value is greater than key.
+     */
+    private static int upperBound(int[] array, int low, int high, int key) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String getName() {
+        return "Parallel Merge Sort";
+    }
+
+    @Override
+    public String getTimeComplexity() {
+        return "O(n log n)";
+    }
+
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel Quick Sort implementation using a ForkJoinPool.
+ * Both partitions of a range larger than the threshold become subtasks
+ * that idle workers can steal. The first few partitions of a large
+ * array are themselves done in parallel: chunks are counted and
+ * scattered three ways (less, equal, greater) through a buffer, so the
+ * initial O(n) passes are not single-threaded. Smaller ranges use the
+ * sequential introsort from QuickSort.
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(n)
+ */
+public class ParallelQuickSort implements Sorter {
+    private static final int DEFAULT_THRESHOLD = 8192;
+    
+    // Ranges at least this large are partitioned in parallel
+    private static final int PARALLEL_PARTITION_THRESHOLD = 1 << 17;
+    
+    private final ForkJoinPool pool;
+    private final int threshold;
+    
+    /**
+     * Creates a parallel quick sort running in the common pool.
+     */
+    public ParallelQuickSort() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * Creates a parallel quick sort running in the given pool.
+     * @param pool The pool running the subtasks
+     */
+    public ParallelQuickSort(ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+    
+    /**
+     * Creates a parallel quick sort.
+     * @param pool The pool running the subtasks
+     * @param threshold Ranges at or below this size are sorted sequentially
+     */
+    public ParallelQuickSort(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n > 1) {
+            int[] buffer = n >= PARALLEL_PARTITION_THRESHOLD ? new int[n] : null;
+            pool.invoke(new SortTask(array, buffer, 0, n - 1, 2 * QuickSort.log2(n), threshold,
+                    pool.getParallelism()));
+        }
+        
+        // The work is spread over several threads, so only the result is reported
+        for (int i = 0; i < n; i++) {
+            v.updateValue(i, array[i]);
+        }
+        v.markAllSorted();
+    }
+    
+    /**
+     * Sorts array[low, high], forking both partitions while they are
+     * larger than the threshold.
+     */
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] array;
+        private final int[] buffer;
+        private final int low;
+        private final int high;
+        private final int depthLimit;
+        private final int threshold;
+        private final int parallelism;
+        
+        SortTask(int[] array, int[] buffer, int low, int high, int depthLimit,
+                 int threshold, int parallelism) {
+            this.array = array;
+            this.buffer = buffer;
+            this.low = low;
+            this.high = high;
+            this.depthLimit = depthLimit;
+            this.threshold = threshold;
+            this.parallelism = parallelism;
+        }
+        
+        @Override
+        protected void compute() {
+            int size = high - low + 1;
+            if (size <= threshold) {
+                QuickSort.quickSort(array, low, high, depthLimit, NoOpObserver.INSTANCE);
+                return;
+            }
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, low, high + 1, NoOpObserver.INSTANCE);
+                return;
+            }
+            
+            int leftHigh, rightLow;
+            if (buffer != null && size >= PARALLEL_PARTITION_THRESHOLD) {
+                int[] bounds = parallelPartition();
+                leftHigh = bounds[0] - 1;
+                rightLow = bounds[1] + 1;
+            } else {
+                int pivotIndex = QuickSort.partition(array, low, high, NoOpObserver.INSTANCE);
+                leftHigh = pivotIndex - 1;
+                rightLow = pivotIndex + 1;
+            }
+            
+            invokeAll(subtask(low, leftHigh), subtask(rightLow, high));
+        }
+        
+        private SortTask subtask(int from, int to) {
+            return new SortTask(array, buffer, from, to, depthLimit - 1, threshold, parallelism);
+        }
+        
+        /**
+         * Three-way partitions array[low, high] around a pivot using all
+         * workers: each chunk counts its keys, a prefix sum gives every chunk
+         * its output offsets, the chunks scatter into the buffer and the
+         * buffer is copied back.
+         * @return The first and last index of the keys equal to the pivot
+         */
+        private int[] parallelPartition() {
+            int pivot = array[QuickSort.choosePivot(array, low, high, NoOpObserver.INSTANCE)];
+            int size = high - low + 1;
+            int chunks = Math.max(1, Math.min(parallelism * 4, size / threshold));
+            int chunkSize = (size + chunks - 1) / chunks;
+            
+            // Count keys less than and equal to the pivot in every chunk
+            int[] less = new int[chunks];
+            int[] equal = new int[chunks];
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                final int from = chunkStart(c, chunkSize);
+                final int to = chunkStart(c + 1, chunkSize);
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    int lessCount = 0, equalCount = 0;
+                    for (int i = from; i < to; i++) {
+                        if (array[i] < pivot) {
+                            lessCount++;
+                        } else if (array[i] == pivot) {
+                            equalCount++;
+                        }
+                    }
+                    less[chunk] = lessCount;
+                    equal[chunk] = equalCount;
+                }));
+            }
+            invokeAll(tasks);
+            
+            int totalLess = 0, totalEqual = 0;
+            for (int c = 0; c < chunks; c++) {
+                totalLess += less[c];
+                totalEqual += equal[c];
+            }
+            
+            // Prefix sums: where each chunk writes its less, equal and greater keys
+            int[] lessStart = new int[chunks];
+            int[] equalStart = new int[chunks];
+            int[] greaterStart = new int[chunks];
+            int lessOffset = low;
+            int equalOffset = low + totalLess;
+            int greaterOffset = low + totalLess + totalEqual;
+            for (int c = 0; c < chunks; c++) {
+                int from = chunkStart(c, chunkSize);
+                int to = chunkStart(c + 1, chunkSize);
+                lessStart[c] = lessOffset;
+                equalStart[c] = equalOffset;
+                greaterStart[c] = greaterOffset;
+                lessOffset += less[c];
+                equalOffset += equal[c];
+                greaterOffset += (to - from) - less[c] - equal[c];
+            }
+            
+            // Scatter every chunk into the buffer
+            tasks.clear();
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                final int from = chunkStart(c, chunkSize);
+                final int to = chunkStart(c + 1, chunkSize);
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    int l = lessStart[chunk], e = equalStart[chunk], g = greaterStart[chunk];
+                    for (int i = from; i < to; i++) {
+                        int value = array[i];
+                        if (value < pivot) {
+                            buffer[l++] = value;
+                        } else if (value == pivot) {
+                            buffer[e++] = value;
+                        } else {
+                            buffer[g++] = value;
+                        }
+                    }
+                }));
+            }
+            invokeAll(tasks);
+            
+            // Copy the partitioned range back
+            tasks.clear();
+            for (int c = 0; c < chunks; c++) {
+                final int from = chunkStart(c, chunkSize);
+                final int length = chunkStart(c + 1, chunkSize) - from;
+                tasks.add(ForkJoinTask.adapt(() -> System.arraycopy(buffer, from, array, from, length)));
+            }
+            invokeAll(tasks);
+            
+            return new int[] {low + totalLess, low + totalLess + totalEqual - 1};
+        }
+        
+        /**
+         * Returns the first index of the given chunk, clamped to the range.
+         */
+        private int chunkStart(int chunk, int chunkSize) {
+            return (int) Math.min(high + 1, low + (long) chunk * chunkSize);
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "Parallel Quick Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel Sample Sort implementation using a ForkJoinPool.
+ * Like Bucket Sort it distributes keys into buckets and sorts each bucket,
+ * but the bucket boundaries (splitters) come from a sorted random sample,
+ * so buckets stay balanced whatever the value distribution. Every worker
+ * histograms its own chunk of the input, a prefix sum over the histograms
+ * gives each chunk its write offsets in every bucket, the chunks scatter
+ * into a buffer concurrently, and the buckets are then sorted concurrently.
+ * Every splitter also gets a bucket of its own for the keys equal to it,
+ * which needs no sorting. Heavily repeated keys show up several times in
+ * the sample, so their splitters collapse into one and all their copies
+ * land in its equal-key bucket instead of overloading a normal bucket.
+ * When only equal-key buckets are filled, the array is rewritten from
+ * the counts without scattering.
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(n)
+ */
+public class ParallelSampleSort implements Sorter {
+    // Below this size the overhead of sampling outweighs the parallel speedup
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    
+    // Buckets per worker, so a slow bucket does not hold up the whole sort
+    private static final int BUCKETS_PER_THREAD = 4;
+    
+    // Sample keys drawn per bucket when choosing splitters
+    private static final int OVERSAMPLING = 32;
+    
+    // Same seed as SortBenchmark's inputs, so runs draw the same splitters
+    private static final long DEFAULT_SEED = 42;
+    
+    private final ForkJoinPool pool;
+    private final long seed;
+    
+    /**
+     * Creates a parallel sample sort running in the common pool.
+     */
+    public ParallelSampleSort() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a parallel sample sort running in the given pool.
+     * @param pool The pool running the subtasks
+     */
+    public ParallelSampleSort(ForkJoinPool pool) {
+        this(pool, DEFAULT_SEED);
+    }
+    
+    /**
+     * Creates a parallel sample sort running in the given pool, sampling
+     * splitters with the given seed. Each sort draws the same sample
+     * positions for arrays of the same size, so bucket sizes, and timings,
+     * are reproducible from run to run.
+     * @param pool The pool running the subtasks
+     * @param seed The seed of the splitter sample
+     */
+    public ParallelSampleSort(ForkJoinPool pool, long seed) {
+        this.pool = pool;
+        this.seed = seed;
+    }
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n >= SEQUENTIAL_THRESHOLD && pool.getParallelism() > 1) {
+            sampleSort(array);
+        } else if (n > 1) {
+            QuickSort.quickSort(array, 0, n - 1, 2 * QuickSort.log2(n), NoOpObserver.INSTANCE);
+        }
+        
+        // The work is spread over several threads, so only the result is reported
+        for (int i = 0; i < n; i++) {
+            v.updateValue(i, array[i]);
+        }
+        v.markAllSorted();
+    }
+    
+    private void sampleSort(int[] array) {
+        int n = array.length;
+        int chunks = pool.getParallelism();
+        int chunkSize = (n + chunks - 1) / chunks;
+        int[] splitters = chooseSplitters(array, chunks * BUCKETS_PER_THREAD, new Random(seed));
+        int buckets = 2 * splitters.length + 1;
+        
+        // Per-chunk histograms: how many keys of chunk c fall in bucket b
+        int[][] counts = new int[chunks][buckets];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            final int[] histogram = counts[c];
+            final int from = Math.min(n, c * chunkSize);
+            final int to = Math.min(n, from + chunkSize);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int i = from; i < to; i++) {
+                    histogram[bucketOf(array[i], splitters)]++;
+                }
+            }));
+        }
+        invokeAll(tasks);
+        
+        // Prefix sums, bucket by bucket and then chunk by chunk within a bucket
+        int[] bucketStarts = new int[buckets + 1];
+        int offset = 0;
+        for (int b = 0; b < buckets; b++) {
+            bucketStarts[b] = offset;
+            for (int c = 0; c < chunks; c++) {
+                int count = counts[c][b];
+                counts[c][b] = offset;
+                offset += count;
+            }
+        }
+        bucketStarts[buckets] = n;
+        
+        // With every key equal to a splitter, the counts alone give the result
+        boolean onlyEqualKeys = true;
+        for (int b = 0; b < buckets; b += 2) {
+            onlyEqualKeys &= bucketStarts[b] == bucketStarts[b + 1];
+        }
+        if (onlyEqualKeys) {
+            tasks.clear();
+            for (int b = 1; b < buckets; b += 2) {
+                final int from = bucketStarts[b];
+                final int to = bucketStarts[b + 1];
+                final int key = splitters[b >> 1];
+                tasks.add(ForkJoinTask.adapt(() -> Arrays.fill(array, from, to, key)));
+            }
+            invokeAll(tasks);
+            return;
+        }
+        
+        // Scatter every chunk into the buffer at its own offsets
+        int[] buffer = new int[n];
+        tasks.clear();
+        for (int c = 0; c < chunks; c++) {
+            final int[] offsets = counts[c];
+            final int from = Math.min(n, c * chunkSize);
+            final int to = Math.min(n, from + chunkSize);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int i = from; i < to; i++) {
+                    int value = array[i];
+                    buffer[offsets[bucketOf(value, splitters)]++] = value;
+                }
+            }));
+        }
+        invokeAll(tasks);
+        
+        // Sort the buckets concurrently and copy them back; odd buckets hold equal keys
+        tasks.clear();
+        for (int b = 0; b < buckets; b++) {
+            final int from = bucketStarts[b];
+            final int to = bucketStarts[b + 1];
+            if (from == to) {
+                continue;
+            }
+            final boolean equal = (b & 1) != 0;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                if (!equal) {
+                    QuickSort.quickSort(buffer, from, to - 1, 2 * QuickSort.log2(to - from),
+                            NoOpObserver.INSTANCE);
+                }
+                System.arraycopy(buffer, from, array, from, to - from);
+            }));
+        }
+        invokeAll(tasks);
+    }
+    
+    /**
+     * Picks up to buckets - 1 distinct splitters from a sorted random sample
+     * of the array.
+     */
+    private static int[] chooseSplitters(int[] array, int buckets, Random random) {
+        int[] sample = new int[buckets * OVERSAMPLING];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = array[random.nextInt(array.length)];
+        }
+        QuickSort.quickSort(sample, 0, sample.length - 1, 2 * QuickSort.log2(sample.length),
+                NoOpObserver.INSTANCE);
+        
+        // Equal picks are kept once, so one splitter stands for a repeated key
+        int[] splitters = new int[buckets - 1];
+        int count = 0;
+        for (int i = 1; i < buckets; i++) {
+            int splitter = sample[i * OVERSAMPLING];
+            if (count == 0 || splitters[count - 1] != splitter) {
+                splitters[count++] = splitter;
+            }
+        }
+        return Arrays.copyOf(splitters, count);
+    }
+    
+    /**
+     * Returns the bucket of a key: 2i + 1 if it equals splitter i, and 2i
+     * otherwise, where i is the number of splitters less than it.
+     */
+    private static int bucketOf(int key, int[] splitters) {
+        int low = 0;
+        int high = splitters.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (splitters[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < splitters.length && splitters[low] == key ? 2 * low + 1 : 2 * low;
+    }
+    
+    /**
+     * Runs the tasks in the pool and waits for all of them.
+     */
+    private void invokeAll(List<ForkJoinTask<?>> tasks) {
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+    
+    @Override
+    public String getName() {
+        return "Parallel Sample Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+}
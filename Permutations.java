@@ -0,0 +1,212 @@
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Argsort and co-sorting support for the sorters, plus helpers to apply
+ * a permutation to payload arrays.
+ * Each key is packed with its index into one long, (key << 32) | index,
+ * so the pairs can be sorted as plain longs with no tuple objects. The
+ * index breaks ties, so equal keys keep their input order whichever
+ * algorithm sorts the longs.
+ * Objects are sorted by a primitive key the same way: the keys are
+ * extracted once, the order is computed on the keys alone, and the
+ * objects are permuted at the end, so no comparator runs per comparison.
+ */
+public final class Permutations {
+    private Permutations() {
+    }
+    
+    /**
+     * Returns the order that sorts keys, sorting the packed pairs with the given long sort.
+     */
+    static int[] argsort(int[] keys, Consumer<long[]> sorter) {
+        long[] packed = pack(keys);
+        sorter.accept(packed);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < packed.length; i++) {
+            order[i] = (int) packed[i];
+        }
+        return order;
+    }
+    
+    /**
+     * Sorts keys and reorders every payload the same way.
+     */
+    static void coSort(int[] keys, int[][] payloads, Consumer<long[]> sorter) {
+        for (int[] payload : payloads) {
+            checkLength(keys.length, payload.length);
+        }
+        long[] packed = pack(keys);
+        sorter.accept(packed);
+        
+        int[] order = new int[keys.length];
+        for (int i = 0; i < packed.length; i++) {
+            keys[i] = (int) (packed[i] >> 32);
+            order[i] = (int) packed[i];
+        }
+        for (int[] payload : payloads) {
+            apply(order, payload);
+        }
+    }
+    
+    /**
+     * Stable sort of objects by an int key, sorting the packed pairs with the given long sort.
+     */
+    static <T> void sortByInt(T[] array, ToIntFunction<? super T> key, Consumer<long[]> sorter) {
+        int[] keys = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            keys[i] = key.applyAsInt(array[i]);
+        }
+        apply(argsort(keys, sorter), array);
+    }
+    
+    /**
+     * Stable sort of objects by a long key.
+     * A long key and its index do not fit in one long, so the order is
+     * found by an LSD radix sort that carries the indices along.
+     */
+    static <T> void sortByLong(T[] array, ToLongFunction<? super T> key) {
+        long[] keys = new long[array.length];
+        for (int i = 0; i < array.length; i++) {
+            keys[i] = key.applyAsLong(array[i]);
+        }
+        apply(radixArgsort(keys), array);
+    }
+    
+    /**
+     * Sorts keys with LSD radix sort and returns the order, moving each
+     * key's index with it. Equal keys keep their input order.
+     */
+    private static int[] radixArgsort(long[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n < 2) {
+            return order;
+        }
+        
+        int digits = Long.BYTES;
+        int[] counts = new int[digits * RadixSort.RADIX];
+        for (int i = 0; i < n; i++) {
+            long k = keys[i] ^ Long.MIN_VALUE;
+            for (int d = 0; d < digits; d++) {
+                counts[d * RadixSort.RADIX + ((int) (k >>> (d * RadixSort.RADIX_BITS)) & (RadixSort.RADIX - 1))]++;
+            }
+        }
+        
+        long[] srcKeys = keys, dstKeys = new long[n];
+        int[] srcOrder = order, dstOrder = new int[n];
+        for (int d = 0; d < digits; d++) {
+            int shift = d * RadixSort.RADIX_BITS;
+            int base = d * RadixSort.RADIX;
+            if (counts[base + ((int) ((srcKeys[0] ^ Long.MIN_VALUE) >>> shift) & (RadixSort.RADIX - 1))] == n) {
+                continue;
+            }
+            
+            int offset = 0;
+            for (int b = base; b < base + RadixSort.RADIX; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < n; i++) {
+                long k = srcKeys[i];
+                int target = counts[base + ((int) ((k ^ Long.MIN_VALUE) >>> shift) & (RadixSort.RADIX - 1))]++;
+                dstKeys[target] = k;
+                dstOrder[target] = srcOrder[i];
+            }
+            
+            long[] tempKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tempKeys;
+            int[] tempOrder = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = tempOrder;
+        }
+        return srcOrder;
+    }
+    
+    /**
+     * Sorts a list by copying it to an array, sorting the array and
+     * writing the elements back, as List.sort does.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void sortList(List<T> list, Consumer<T[]> sorter) {
+        T[] array = (T[]) list.toArray();
+        sorter.accept(array);
+        ListIterator<T> iterator = list.listIterator();
+        for (T element : array) {
+            iterator.next();
+            iterator.set(element);
+        }
+    }
+    
+    private static long[] pack(int[] keys) {
+        long[] packed = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            packed[i] = (long) keys[i] << 32 | i;
+        }
+        return packed;
+    }
+    
+    /**
+     * Reorders array so that array[i] becomes the old array[order[i]].
+     * @param order A permutation, e.g. from argsort
+     * @param array The array to reorder, as long as the permutation
+     */
+    public static void apply(int[] order, int[] array) {
+        checkLength(order.length, array.length);
+        int[] gathered = ScratchBuffer.get(order.length);
+        for (int i = 0; i < order.length; i++) {
+            gathered[i] = array[order[i]];
+        }
+        System.arraycopy(gathered, 0, array, 0, order.length);
+    }
+    
+    /**
+     * Reorders array so that array[i] becomes the old array[order[i]].
+     */
+    public static void apply(int[] order, long[] array) {
+        checkLength(order.length, array.length);
+        long[] gathered = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            gathered[i] = array[order[i]];
+        }
+        System.arraycopy(gathered, 0, array, 0, order.length);
+    }
+    
+    /**
+     * Reorders array so that array[i] becomes the old array[order[i]].
+     */
+    public static void apply(int[] order, double[] array) {
+        checkLength(order.length, array.length);
+        double[] gathered = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            gathered[i] = array[order[i]];
+        }
+        System.arraycopy(gathered, 0, array, 0, order.length);
+    }
+    
+    /**
+     * Reorders array so that array[i] becomes the old array[order[i]].
+     */
+    public static <T> void apply(int[] order, T[] array) {
+        checkLength(order.length, array.length);
+        Object[] gathered = new Object[order.length];
+        for (int i = 0; i < order.length; i++) {
+            gathered[i] = array[order[i]];
+        }
+        System.arraycopy(gathered, 0, array, 0, order.length);
+    }
+    
+    private static void checkLength(int expected, int length) {
+        if (length != expected) {
+            throw new IllegalArgumentException("Array length " + length + " does not match " + expected);
+        }
+    }
+}
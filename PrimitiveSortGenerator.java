@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates LongSorts, DoubleSorts, FloatSorts, ShortSorts and CharSorts
+ * from PrimitiveSorts.template, so the primitive specializations never
+ * drift apart. Run it from the source directory after editing the template:
+ *
+ *   javac PrimitiveSortGenerator.java && java PrimitiveSortGenerator
+ *
+ * The template uses $type$ (e.g. double), $Type$ (Double), $key$ (the
+ * radix key type) and $digits$ (bytes per key), plus line directives
+ * "#if name", "#else" and "#end", where name is a type or "floating".
+ * $castType$ and $castKeyToInt$ become a cast to the type, or from the
+ * key to int, only where one is needed; javac -Xlint flags the others.
+ */
+public final class PrimitiveSortGenerator {
+    private static final String TEMPLATE = "PrimitiveSorts.template";
+    
+    // type, radix key type, bytes per key
+    private static final String[][] TYPES = {
+        {"long", "long", "8"},
+        {"double", "long", "8"},
+        {"float", "int", "4"},
+        {"short", "int", "2"},
+        {"char", "int", "2"},
+    };
+    
+    private PrimitiveSortGenerator() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+        List<String> template = Files.readAllLines(directory.resolve(TEMPLATE), StandardCharsets.UTF_8);
+        
+        for (String[] type : TYPES) {
+            String name = type[0];
+            String typeName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            String className = typeName + "Sorts";
+            boolean floating = name.equals("double") || name.equals("float");
+            
+            // Double literals and int keys need no cast
+            String castType = name.equals("double") ? "" : "(" + name + ") ";
+            String castKeyToInt = type[1].equals("int") ? "" : "(int) ";
+            
+            List<String> lines = new ArrayList<>();
+            boolean included = true;
+            for (String line : template) {
+                String directive = line.trim();
+                if (directive.startsWith("#if ")) {
+                    String condition = directive.substring(4).trim();
+                    included = condition.equals(name) || (floating && condition.equals("floating"));
+                } else if (directive.equals("#else")) {
+                    included = !included;
+                } else if (directive.equals("#end")) {
+                    included = true;
+                } else if (included) {
+                    lines.add(line.replace("$type$", name)
+                            .replace("$Type$", typeName)
+                            .replace("$key$", type[1])
+                            .replace("$digits$", type[2])
+                            .replace("$castType$", castType)
+                            .replace("$castKeyToInt$", castKeyToInt));
+                }
+            }
+            
+            Files.write(directory.resolve(className + ".java"), lines, StandardCharsets.UTF_8);
+            System.out.println("Generated " + className + ".java");
+        }
+    }
+}
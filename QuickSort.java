@@ -1,69 +1,485 @@
+import java.nio.IntBuffer;
+
 /**
- * Quick Sort implementation.
- * Time Complexity: O(n log n) average, O(n²) worst case
- * Space Complexity: O(log n)
+ * Quick Sort implementation (introsort).
+ * Picks the pivot as a median of three or, for larger ranges, Tukey's
+ * ninther, and partitions with Hoare's scheme so runs of equal keys
+ * split evenly. Only the smaller side is recursed into, small ranges
+ * are finished with insertion sort, and ranges that recurse deeper than
+ * 2·log2(n) fall back to Heap Sort.
+ * The same partitioning drives select (nth element), percentile and
+ * partialSort, which only order as much of the array as a query needs.
+ * Also sorts LargeIntArrays in place, e.g. off-heap arrays or
+ * memory-mapped files, and IntBuffers through the same code.
+ * Given SortKernels, it sorts headless with their two-way partition and
+ * small-block sort instead, e.g. the vectorized ones. Their partition
+ * stages a whole range in a scratch buffer, so that variant takes O(n)
+ * extra space.
+ * Time Complexity: O(n log n)
+ * Space Complexity: O(log n), or O(n) with kernels
  */
 public class QuickSort implements Sorter {
+    // Ranges this small are finished with insertion sort
+    static final int INSERTION_SORT_THRESHOLD = 16;
+    
+    // Ranges larger than this use the ninther instead of median of three
+    private static final int NINTHER_THRESHOLD = 40;
+    
+    private final SortKernels kernels; // null for the visualized Hoare partition
+    
+    /**
+     * Creates a quick sort with the visualized Hoare partition.
+     */
+    public QuickSort() {
+        this(null);
+    }
+    
+    /**
+     * Creates a headless quick sort that partitions and finishes small
+     * ranges with the given kernels.
+     * @param kernels The kernels, e.g. SortKernels.vector(), or null for the Hoare partition
+     */
+    public QuickSort(SortKernels kernels) {
+        this.kernels = kernels;
+    }
     
     @Override
-    public void sort(int[] array, Visualizer v) {
-        quickSort(array, 0, array.length - 1, v);
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (kernels != null) {
+            if (n > 1) {
+                quickSort(array, 0, n, 2 * log2(n), kernels, ScratchBuffer.get(n + SortKernels.BLOCK));
+            }
+            
+            // The kernels move whole blocks at a time, so only the result is reported
+            for (int i = 0; i < n; i++) {
+                v.updateValue(i, array[i]);
+            }
+        } else if (n > 1) {
+            quickSort(array, 0, n - 1, 2 * log2(n), v);
+        }
         v.markAllSorted();
     }
     
     /**
-     * Recursive quick sort implementation.
+     * Introsort loop. Recurses into the smaller partition and loops on the
+     * larger one, so the stack depth stays O(log n).
      */
-    private void quickSort(int[] array, int low, int high, Visualizer v) {
-        if (low < high) {
+    static void quickSort(int[] array, int low, int high, int depthLimit, SortObserver v) {
+        while (high - low + 1 > INSERTION_SORT_THRESHOLD) {
+            // Too many unbalanced partitions, finish this range in guaranteed O(n log n)
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, low, high + 1, v);
+                return;
+            }
+            depthLimit--;
+            
             int pivotIndex = partition(array, low, high, v);
-            quickSort(array, low, pivotIndex - 1, v);
-            quickSort(array, pivotIndex + 1, high, v);
+            if (pivotIndex - low < high - pivotIndex) {
+                quickSort(array, low, pivotIndex - 1, depthLimit, v);
+                low = pivotIndex + 1;
+            } else {
+                quickSort(array, pivotIndex + 1, high, depthLimit, v);
+                high = pivotIndex - 1;
+            }
+        }
+        insertionSort(array, low, high, v);
+    }
+    
+    /**
+     * Introsort loop on array[from, to) using the kernels' partition,
+     * which splits off the values below the pivot. If there are none, the
+     * pivot is the minimum and its copies are split off and left in place.
+     */
+    static void quickSort(int[] array, int from, int to, int depthLimit, SortKernels kernels, int[] buffer) {
+        while (to - from > SortKernels.BLOCK) {
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, from, to, NoOpObserver.INSTANCE);
+                return;
+            }
+            depthLimit--;
+            
+            int pivot = array[choosePivot(array, from, to - 1, NoOpObserver.INSTANCE)];
+            int mid = kernels.partition(array, from, to, pivot, buffer);
+            if (mid == from) {
+                from = pivot == Integer.MAX_VALUE ? to : kernels.partition(array, from, to, pivot + 1, buffer);
+                continue;
+            }
+            if (mid - from < to - mid) {
+                quickSort(array, from, mid, depthLimit, kernels, buffer);
+                from = mid;
+            } else {
+                quickSort(array, mid, to, depthLimit, kernels, buffer);
+                to = mid;
+            }
+        }
+        kernels.sortBlock(array, from, to);
+    }
+    
+    /**
+     * Rearranges the array so that array[k] holds the value it would have
+     * if the array were sorted, with no larger values before it and no
+     * smaller values after it (nth element). Uses introselect: partition
+     * and continue on the side holding k, falling back to Heap Sort on
+     * that side if partitions stay unbalanced.
+     * Time Complexity: O(n) average, O(n log n) worst case
+     * @return The k-th smallest value (0-based)
+     */
+    public static int select(int[] array, int k) {
+        int n = array.length;
+        if (k < 0 || k >= n) {
+            throw new IndexOutOfBoundsException("k " + k + " out of bounds for length " + n);
+        }
+        int low = 0;
+        int high = n - 1;
+        int depthLimit = 2 * log2(n);
+        while (high - low + 1 > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, low, high + 1, NoOpObserver.INSTANCE);
+                return array[k];
+            }
+            depthLimit--;
+            
+            int pivotIndex = partition(array, low, high, NoOpObserver.INSTANCE);
+            if (k == pivotIndex) {
+                return array[k];
+            } else if (k < pivotIndex) {
+                high = pivotIndex - 1;
+            } else {
+                low = pivotIndex + 1;
+            }
+        }
+        insertionSort(array, low, high, NoOpObserver.INSTANCE);
+        return array[k];
+    }
+    
+    /**
+     * Returns the given percentile of the array by the nearest-rank method,
+     * e.g. 50 for the median or 99 for p99. Reorders the array like select.
+     * @param percentile Between 0 and 100
+     */
+    public static int percentile(int[] array, double percentile) {
+        if (array.length == 0) {
+            throw new IllegalArgumentException("Empty array");
+        }
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        int rank = (int) Math.ceil(percentile / 100 * array.length);
+        return select(array, Math.max(0, rank - 1));
+    }
+    
+    /**
+     * Sorts only the first k positions: afterwards array[0, k) holds the
+     * k smallest values in ascending order and the rest of the array is
+     * in no particular order. Partitions that lie entirely at or beyond
+     * k are never sorted.
+     * Time Complexity: O(n + k log k) average
+     */
+    public static void partialSort(int[] array, int k) {
+        int n = array.length;
+        if (k < 0 || k > n) {
+            throw new IndexOutOfBoundsException("k " + k + " out of bounds for length " + n);
+        }
+        if (k > 0 && n > 1) {
+            partialSort(array, 0, n - 1, k, 2 * log2(n));
+        }
+    }
+    
+    private static void partialSort(int[] array, int low, int high, int k, int depthLimit) {
+        while (low < k && high - low + 1 > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, low, high + 1, NoOpObserver.INSTANCE);
+                return;
+            }
+            depthLimit--;
+            
+            // The left side lies (partly) below k; the right side only matters if it starts below k
+            int pivotIndex = partition(array, low, high, NoOpObserver.INSTANCE);
+            partialSort(array, low, pivotIndex - 1, k, depthLimit);
+            low = pivotIndex + 1;
+        }
+        if (low < k) {
+            insertionSort(array, low, high, NoOpObserver.INSTANCE);
         }
     }
     
     /**
      * Partitions the array around a pivot element.
-     * Uses the last element as pivot.
+     * Uses Hoare's scheme: both scans stop on keys equal to the pivot,
+     * so duplicates end up evenly on both sides.
+     * @return The final index of the pivot
      */
-    private int partition(int[] array, int low, int high, Visualizer v) {
-        int pivot = array[high];
-        int i = low - 1;
+    static int partition(int[] array, int low, int high, SortObserver v) {
+        // Move the chosen pivot to the front
+        swap(array, low, choosePivot(array, low, high, v), v);
+        int pivot = array[low];
+        int i = low;
+        int j = high + 1;
         
-        for (int j = low; j < high; j++) {
-            // Highlight current element and pivot
-            v.highlight(j, high);
-            v.sleep();
-            
-            if (array[j] <= pivot) {
+        while (true) {
+            // Find an element on the left that belongs on the right
+            do {
                 i++;
-                if (i != j) {
-                    // Swap elements
-                    v.swap(i, j);
-                    int temp = array[i];
-                    array[i] = array[j];
-                    array[j] = temp;
-                    v.sleep();
-                }
+                v.highlight(i, low);
+                v.sleep();
+            } while (i < high && array[i] < pivot);
+            
+            // Find an element on the right that belongs on the left
+            do {
+                j--;
+                v.highlight(j, low);
+                v.sleep();
+            } while (array[j] > pivot);
+            
+            if (i >= j) {
+                break;
             }
+            swap(array, i, j, v);
         }
         
         // Place pivot in correct position
-        if (i + 1 != high) {
-            v.highlight(i + 1, high);
-            v.swap(i + 1, high);
-            int temp = array[i + 1];
-            array[i + 1] = array[high];
-            array[high] = temp;
+        swap(array, low, j, v);
+        return j;
+    }
+    
+    /**
+     * Returns the index of the pivot for array[low, high]: the median of
+     * the first, middle and last elements, or for large ranges the median
+     * of three such medians (Tukey's ninther).
+     */
+    static int choosePivot(int[] array, int low, int high, SortObserver v) {
+        int mid = low + (high - low) / 2;
+        if (high - low + 1 <= NINTHER_THRESHOLD) {
+            return medianOfThree(array, low, mid, high, v);
+        }
+        
+        int step = (high - low + 1) / 8;
+        int m1 = medianOfThree(array, low, low + step, low + 2 * step, v);
+        int m2 = medianOfThree(array, mid - step, mid, mid + step, v);
+        int m3 = medianOfThree(array, high - 2 * step, high - step, high, v);
+        return medianOfThree(array, m1, m2, m3, v);
+    }
+    
+    /**
+     * Returns whichever of the three indices holds the median value.
+     */
+    static int medianOfThree(int[] array, int a, int b, int c, SortObserver v) {
+        v.highlight(a, b);
+        v.highlight(b, c);
+        if (array[a] < array[b]) {
+            if (array[b] < array[c]) return b;
+            return array[a] < array[c] ? c : a;
+        } else {
+            if (array[c] < array[b]) return b;
+            return array[c] < array[a] ? c : a;
+        }
+    }
+    
+    /**
+     * Insertion sort for array[low, high], used for small ranges.
+     */
+    static void insertionSort(int[] array, int low, int high, SortObserver v) {
+        for (int i = low + 1; i <= high; i++) {
+            int key = array[i];
+            int j = i - 1;
+            
+            v.highlight(i, -1);
+            v.sleep();
+            
+            while (j >= low && array[j] > key) {
+                v.highlight(j, j + 1);
+                array[j + 1] = array[j];
+                v.updateValue(j + 1, array[j]);
+                v.sleep();
+                j--;
+            }
+            
+            array[j + 1] = key;
+            v.updateValue(j + 1, key);
+        }
+    }
+    
+    /**
+     * Swaps two elements and reports the swap to the observer.
+     */
+    static void swap(int[] array, int i, int j, SortObserver v) {
+        if (i != j) {
+            v.swap(i, j);
+            int temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
             v.sleep();
         }
+    }
+    
+    /**
+     * Sorts a long-indexed array in place, e.g. an OffHeapIntArray or a
+     * memory-mapped file.
+     */
+    public static void sort(LargeIntArray array) {
+        long n = array.length();
+        if (n > 1) {
+            quickSort(array, 0, n - 1, 2 * log2(n));
+        }
+    }
+    
+    /**
+     * Introsort loop over array[low, high], the long-indexed version of
+     * quickSort without observer events.
+     */
+    static void quickSort(LargeIntArray array, long low, long high, int depthLimit) {
+        while (high - low + 1 > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, low, high + 1);
+                return;
+            }
+            depthLimit--;
+            
+            long pivotIndex = partition(array, low, high);
+            if (pivotIndex - low < high - pivotIndex) {
+                quickSort(array, low, pivotIndex - 1, depthLimit);
+                low = pivotIndex + 1;
+            } else {
+                quickSort(array, pivotIndex + 1, high, depthLimit);
+                high = pivotIndex - 1;
+            }
+        }
+        insertionSort(array, low, high);
+    }
+    
+    /**
+     * Hoare partition of array[low, high].
+     * @return The final index of the pivot
+     */
+    private static long partition(LargeIntArray array, long low, long high) {
+        swap(array, low, choosePivot(array, low, high));
+        int pivot = array.get(low);
+        long i = low;
+        long j = high + 1;
+        
+        while (true) {
+            while (++i < high && array.get(i) < pivot) {
+            }
+            while (array.get(--j) > pivot) {
+            }
+            if (i >= j) {
+                break;
+            }
+            swap(array, i, j);
+        }
         
-        return i + 1;
+        swap(array, low, j);
+        return j;
+    }
+    
+    private static long choosePivot(LargeIntArray array, long low, long high) {
+        long mid = low + (high - low) / 2;
+        if (high - low + 1 <= NINTHER_THRESHOLD) {
+            return medianOfThree(array, low, mid, high);
+        }
+        
+        long step = (high - low + 1) / 8;
+        long m1 = medianOfThree(array, low, low + step, low + 2 * step);
+        long m2 = medianOfThree(array, mid - step, mid, mid + step);
+        long m3 = medianOfThree(array, high - 2 * step, high - step, high);
+        return medianOfThree(array, m1, m2, m3);
+    }
+    
+    private static long medianOfThree(LargeIntArray array, long a, long b, long c) {
+        int x = array.get(a), y = array.get(b), z = array.get(c);
+        if (x < y) {
+            if (y < z) return b;
+            return x < z ? c : a;
+        } else {
+            if (z < y) return b;
+            return z < x ? c : a;
+        }
+    }
+    
+    private static void insertionSort(LargeIntArray array, long low, long high) {
+        for (long i = low + 1; i <= high; i++) {
+            int key = array.get(i);
+            long j = i - 1;
+            while (j >= low && array.get(j) > key) {
+                array.set(j + 1, array.get(j));
+                j--;
+            }
+            array.set(j + 1, key);
+        }
+    }
+    
+    private static void swap(LargeIntArray array, long i, long j) {
+        int temp = array.get(i);
+        array.set(i, array.get(j));
+        array.set(j, temp);
+    }
+    
+    /**
+     * Returns floor(log2(n)) for n > 0.
+     */
+    static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+    
+    static int log2(long n) {
+        return 63 - Long.numberOfLeadingZeros(n);
+    }
+    
+    /**
+     * Sorts the ints between the buffer's position and limit in place,
+     * without copying them to the heap. The position is left unchanged.
+     */
+    public static void sort(IntBuffer buffer) {
+        sort(SegmentedIntArray.wrap(buffer));
+    }
+    
+    /**
+     * Returns the permutation that sorts keys, so that keys[order[0]],
+     * keys[order[1]], ... is ascending. The keys are not modified.
+     * Equal keys keep their input order, since the
+     * index is part of the sort key even though Quick Sort is not stable.
+     */
+    public static int[] argsort(int[] keys) {
+        return Permutations.argsort(keys, LongSorts::quickSort);
+    }
+    
+    /**
+     * Sorts keys and moves the elements of every payload array (row ids,
+     * offsets, ...) along with their keys. Use argsort and
+     * Permutations.apply for payloads of other types.
+     */
+    public static void coSort(int[] keys, int[]... payloads) {
+        Permutations.coSort(keys, payloads, LongSorts::quickSort);
+    }
+    
+    /*
+     * Primitive specializations, generated from PrimitiveSorts.template.
+     * Doubles and floats sort like Arrays.sort: -0.0 before 0.0, NaN last.
+     */
+    public static void sort(long[] array) {
+        LongSorts.quickSort(array);
+    }
+    
+    public static void sort(double[] array) {
+        DoubleSorts.quickSort(array);
+    }
+    
+    public static void sort(float[] array) {
+        FloatSorts.quickSort(array);
+    }
+    
+    public static void sort(short[] array) {
+        ShortSorts.quickSort(array);
+    }
+    
+    public static void sort(char[] array) {
+        CharSorts.quickSort(array);
     }
     
     @Override
     public String getName() {
-        return "Quick Sort";
+        return kernels == null ? "Quick Sort" : "Quick Sort (" + kernels.getName() + " kernels)";
     }
     
     @Override
@@ -73,7 +489,7 @@ public class QuickSort implements Sorter {
     
     @Override
     public String getSpaceComplexity() {
-        return "O(log n)";
+        // The kernels partition through a scratch buffer as long as the range
+        return kernels == null ? "O(log n)" : "O(n)";
     }
 }
-
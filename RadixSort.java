@@ -0,0 +1,176 @@
+/**
+ * Radix Sort implementation (LSD, one byte per digit).
+ * A single pass builds the histograms of all four bytes, then each byte
+ * is scattered from least to most significant, alternating between the
+ * array and a scratch buffer. Bytes that are the same for every key are
+ * skipped. The sign bit is flipped when extracting the top byte so
+ * negative keys sort before positive ones.
+ * Also sorts LargeIntArrays (e.g. OffHeapIntArrays) with a buffer of the
+ * same kind freed after the sort.
+ * Time Complexity: O(n)
+ * Space Complexity: O(n)
+ */
+public class RadixSort implements Sorter {
+    static final int RADIX_BITS = 8;
+    static final int RADIX = 1 << RADIX_BITS;
+    static final int DIGITS = Integer.SIZE / RADIX_BITS;
+    static final int SIGN_BIT = Integer.MIN_VALUE;
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n > 1) {
+            radixSort(array, ScratchBuffer.get(n), v);
+        }
+        v.markAllSorted();
+    }
+    
+    private void radixSort(int[] array, int[] buffer, SortObserver v) {
+        int n = array.length;
+        
+        // Histograms of every digit in one pass
+        int[] counts = new int[DIGITS * RADIX];
+        for (int i = 0; i < n; i++) {
+            v.highlight(i, -1);
+            int key = array[i] ^ SIGN_BIT;
+            for (int d = 0; d < DIGITS; d++) {
+                counts[d * RADIX + ((key >>> (d * RADIX_BITS)) & (RADIX - 1))]++;
+            }
+        }
+        v.sleep();
+        
+        int[] src = array;
+        int[] dst = buffer;
+        for (int d = 0; d < DIGITS; d++) {
+            int shift = d * RADIX_BITS;
+            int base = d * RADIX;
+            
+            // Every key has the same digit here, the pass would not move anything
+            if (counts[base + (((src[0] ^ SIGN_BIT) >>> shift) & (RADIX - 1))] == n) {
+                continue;
+            }
+            
+            // Turn counts into start offsets
+            int offset = 0;
+            for (int b = base; b < base + RADIX; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            
+            // Stable scatter by this digit
+            for (int i = 0; i < n; i++) {
+                v.highlight(i, -1);
+                v.sleep();
+                
+                int value = src[i];
+                dst[counts[base + (((value ^ SIGN_BIT) >>> shift) & (RADIX - 1))]++] = value;
+            }
+            
+            // Show the order after this pass
+            for (int i = 0; i < n; i++) {
+                v.updateValue(i, dst[i]);
+            }
+            v.sleep();
+            
+            int[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+        
+        // An odd number of passes leaves the result in the buffer
+        if (src != array) {
+            System.arraycopy(src, 0, array, 0, n);
+        }
+    }
+    
+    /**
+     * Sorts a long-indexed array, using a buffer of the same length
+     * allocated with newArray (off-heap for an OffHeapIntArray).
+     */
+    public static void sort(LargeIntArray array) {
+        long n = array.length();
+        if (n < 2) {
+            return;
+        }
+        
+        // Counts are longs since there may be more than 2^31 keys
+        long[] counts = new long[DIGITS * RADIX];
+        for (long i = 0; i < n; i++) {
+            int key = array.get(i) ^ SIGN_BIT;
+            for (int d = 0; d < DIGITS; d++) {
+                counts[d * RADIX + ((key >>> (d * RADIX_BITS)) & (RADIX - 1))]++;
+            }
+        }
+        
+        try (LargeIntArray buffer = array.newArray(n)) {
+            LargeIntArray src = array;
+            LargeIntArray dst = buffer;
+            for (int d = 0; d < DIGITS; d++) {
+                int shift = d * RADIX_BITS;
+                int base = d * RADIX;
+                if (counts[base + (((src.get(0) ^ SIGN_BIT) >>> shift) & (RADIX - 1))] == n) {
+                    continue;
+                }
+                
+                long offset = 0;
+                for (int b = base; b < base + RADIX; b++) {
+                    long count = counts[b];
+                    counts[b] = offset;
+                    offset += count;
+                }
+                
+                for (long i = 0; i < n; i++) {
+                    int value = src.get(i);
+                    dst.set(counts[base + (((value ^ SIGN_BIT) >>> shift) & (RADIX - 1))]++, value);
+                }
+                
+                LargeIntArray temp = src;
+                src = dst;
+                dst = temp;
+            }
+            if (src != array) {
+                src.copyTo(0, array, 0, n);
+            }
+        }
+    }
+    
+    /*
+     * Primitive specializations, generated from PrimitiveSorts.template.
+     * Doubles and floats sort like Arrays.sort: -0.0 before 0.0, NaN last.
+     */
+    public static void sort(long[] array) {
+        LongSorts.radixSort(array);
+    }
+    
+    public static void sort(double[] array) {
+        DoubleSorts.radixSort(array);
+    }
+    
+    public static void sort(float[] array) {
+        FloatSorts.radixSort(array);
+    }
+    
+    public static void sort(short[] array) {
+        ShortSorts.radixSort(array);
+    }
+    
+    public static void sort(char[] array) {
+        CharSorts.radixSort(array);
+    }
+    
+    @Override
+    public String getName() {
+        return "Radix Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(n)";
+    }
+}
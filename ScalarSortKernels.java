@@ -0,0 +1,59 @@
+/**
+ * Plain Java sort kernels, the reference for the vectorized ones.
+ * Blocks are insertion sorted, the partition streams values below the
+ * pivot to the front of the range and the rest to the buffer, and the
+ * merge copies the left run to the buffer and merges it back.
+ */
+public class ScalarSortKernels implements SortKernels {
+    
+    @Override
+    public void sortBlock(int[] array, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int key = array[i];
+            int j = i - 1;
+            while (j >= from && array[j] > key) {
+                array[j + 1] = array[j];
+                j--;
+            }
+            array[j + 1] = key;
+        }
+    }
+    
+    @Override
+    public int partition(int[] array, int from, int to, int pivot, int[] buffer) {
+        int low = from;
+        int high = 0;
+        for (int i = from; i < to; i++) {
+            int value = array[i];
+            if (value < pivot) {
+                array[low++] = value;
+            } else {
+                buffer[high++] = value;
+            }
+        }
+        System.arraycopy(buffer, 0, array, low, high);
+        return low;
+    }
+    
+    @Override
+    public void merge(int[] array, int from, int mid, int to, int[] buffer) {
+        int n1 = mid - from;
+        System.arraycopy(array, from, buffer, 0, n1);
+        
+        // The right run is never overwritten before it is read
+        int i = 0, j = mid, k = from;
+        while (i < n1 && j < to) {
+            if (buffer[i] <= array[j]) {
+                array[k++] = buffer[i++];
+            } else {
+                array[k++] = array[j++];
+            }
+        }
+        System.arraycopy(buffer, i, array, k, n1 - i);
+    }
+    
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
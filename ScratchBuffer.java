@@ -0,0 +1,32 @@
+/**
+ * Per-thread scratch buffers for the merge-based sorts.
+ * Each thread keeps one buffer that only ever grows, so repeated sorts
+ * of the same size allocate nothing once the buffer has been sized.
+ */
+public final class ScratchBuffer {
+    private static final ThreadLocal<int[]> BUFFER = new ThreadLocal<>();
+    
+    private ScratchBuffer() {
+    }
+    
+    /**
+     * Returns this thread's buffer, growing it if it is shorter than length.
+     * @param length Minimum length needed
+     * @return A buffer of at least the given length
+     */
+    public static int[] get(int length) {
+        int[] buffer = BUFFER.get();
+        if (buffer == null || buffer.length < length) {
+            buffer = new int[length];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+    
+    /**
+     * Drops this thread's buffer so its memory can be reclaimed.
+     */
+    public static void release() {
+        BUFFER.remove();
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * LargeIntArray over a row of IntBuffers of up to 2^28 ints (1 GB) each,
+ * so one array can be longer than a single buffer's 2^31 - 1 limit.
+ * The buffers may be views of a file mapped one segment at a time (see
+ * MappedFileSort), direct buffers, or heap buffers; the ints are read
+ * and written in place, in each buffer's byte order.
+ *
+ * Buffers are released by the garbage collector once unreachable, so
+ * close() has no effect.
+ */
+public final class SegmentedIntArray implements LargeIntArray {
+    static final int SEGMENT_SHIFT = 28;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    
+    private final IntBuffer[] segments;
+    private final MappedByteBuffer[] mappings; // null unless created by map()
+    private final long length;
+    
+    /**
+     * Creates an array over the given buffers, indexed from the first
+     * buffer's position. Every buffer but the last must hold exactly
+     * SEGMENT_SIZE ints between its position and limit.
+     */
+    SegmentedIntArray(IntBuffer... buffers) {
+        this(null, buffers);
+    }
+    
+    private SegmentedIntArray(MappedByteBuffer[] mappings, IntBuffer[] buffers) {
+        this.mappings = mappings;
+        long total = 0;
+        this.segments = new IntBuffer[buffers.length];
+        for (int s = 0; s < buffers.length; s++) {
+            int remaining = buffers[s].remaining();
+            if (remaining != SEGMENT_SIZE && s < buffers.length - 1) {
+                throw new IllegalArgumentException("Segment " + s + " holds " + remaining
+                        + " ints instead of " + SEGMENT_SIZE);
+            }
+            segments[s] = buffers[s].slice();
+            total += remaining;
+        }
+        this.length = total;
+    }
+    
+    /**
+     * Returns a view of the ints between the buffer's position and limit.
+     * Writes go through to the buffer.
+     */
+    public static SegmentedIntArray wrap(IntBuffer buffer) {
+        IntBuffer view = buffer.slice();
+        IntBuffer[] segments = new IntBuffer[segmentCount(view.capacity())];
+        for (int s = 0; s < segments.length; s++) {
+            int from = (int) segmentStart(s);
+            view.limit(from + segmentLength(view.capacity(), s)).position(from);
+            segments[s] = view.slice();
+        }
+        return new SegmentedIntArray(segments);
+    }
+    
+    /**
+     * Allocates a zeroed array in direct buffers, in native byte order.
+     * @param length Number of ints
+     */
+    public static SegmentedIntArray allocateDirect(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        IntBuffer[] segments = new IntBuffer[segmentCount(length)];
+        for (int s = 0; s < segments.length; s++) {
+            int size = segmentLength(length, s);
+            segments[s] = ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        return new SegmentedIntArray(segments);
+    }
+    
+    /**
+     * Maps a whole file of big-endian ints read-write, one mapping per
+     * segment, so files of any size are covered without copying.
+     * @param channel A channel open for reading and writing
+     * @throws IOException If the file is not a whole number of ints or cannot be mapped
+     */
+    public static SegmentedIntArray map(FileChannel channel) throws IOException {
+        long bytes = channel.size();
+        if (bytes % Integer.BYTES != 0) {
+            throw new IOException("File is not a whole number of ints (" + bytes + " bytes)");
+        }
+        long length = bytes / Integer.BYTES;
+        MappedByteBuffer[] mappings = new MappedByteBuffer[segmentCount(length)];
+        IntBuffer[] segments = new IntBuffer[mappings.length];
+        for (int s = 0; s < mappings.length; s++) {
+            long from = segmentStart(s);
+            long size = segmentLength(length, s);
+            mappings[s] = channel.map(FileChannel.MapMode.READ_WRITE, from * Integer.BYTES, size * Integer.BYTES);
+            segments[s] = mappings[s].asIntBuffer();
+        }
+        return new SegmentedIntArray(mappings, segments);
+    }
+    
+    /**
+     * Writes the changes to a mapped file back to storage. Has no effect
+     * on arrays that were not created by map().
+     */
+    public void force() {
+        if (mappings != null) {
+            for (MappedByteBuffer mapping : mappings) {
+                mapping.force();
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of segments covering length ints, at least one
+     * so that an empty array still has a buffer.
+     */
+    static int segmentCount(long length) {
+        return (int) Math.max(1, (length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+    
+    /**
+     * Returns the index of the first int of segment s.
+     */
+    static long segmentStart(int s) {
+        return (long) s << SEGMENT_SHIFT;
+    }
+    
+    /**
+     * Returns the number of ints in segment s of an array of length ints.
+     * Computed in longs: the end of the eighth segment of a buffer near
+     * 2^31 ints is past Integer.MAX_VALUE.
+     */
+    static int segmentLength(long length, int s) {
+        return (int) Math.min(SEGMENT_SIZE, length - segmentStart(s));
+    }
+    
+    @Override
+    public long length() {
+        return length;
+    }
+    
+    @Override
+    public int get(long index) {
+        checkIndex(index);
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) index & SEGMENT_MASK);
+    }
+    
+    @Override
+    public void set(long index, int value) {
+        checkIndex(index);
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) index & SEGMENT_MASK, value);
+    }
+    
+    @Override
+    public SegmentedIntArray newArray(long length) {
+        return allocateDirect(length);
+    }
+    
+    private void checkIndex(long index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+    }
+    
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,752 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Quick headless smoke benchmark for the sorting algorithms.
+ * Runs every Sorter with NoOpObserver over several input sizes and
+ * distributions, and writes the results as JSON. Everything runs in one
+ * JVM with a few samples, so the JIT's profile of one sorter carries over
+ * to the next; the JMH benchmarks in jmh/ fork a JVM per sorter and are
+ * the numbers to trust.
+ * Bytes allocated per sort on the benchmark thread are reported next to
+ * the time as a rough guide; work done on other threads (e.g. by the
+ * parallel sorts) is not counted. MergeAllocationBench in jmh/ checks
+ * the allocation-free merges with JMH's GC profiler instead.
+ *
+ * Usage:
+ *   java -Xmx8g SortBenchmark [--sizes 1000,1000000] [--dists random,sorted]
+ *                             [--algos "Quick Sort,Heap Sort"] [--warmup 3]
+ *                             [--iterations 5] [--threads 1,2,4,8]
+ *                             [--partial 100] [--count-comparisons true]
+ *                             [--out results.json]
+ *
+ * With --threads, the parallel sorters run once per thread count in a
+ * pool of that size instead of in the common pool, giving scaling curves.
+ * With --partial k, the top-k and selection queries (TopK heap, partial
+ * Quick Sort, quickselect) run instead of the sorters, next to a full
+ * Quick Sort and Arrays.sort as the baseline they should beat.
+ * With --count-comparisons, every sorter also runs once with an observer
+ * that counts highlight events, the comparisons the Visualizer shows.
+ * At the end, each size gets a mixed-workload table: the median time per
+ * algorithm summed over all distributions, fastest first.
+ */
+public class SortBenchmark {
+    // Quadratic algorithms are skipped above this size unless --quadratic-limit is raised
+    private static final int DEFAULT_QUADRATIC_LIMIT = 100_000;
+    private static final long SEED = 42;
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    /**
+     * Input distributions used by the benchmark.
+     */
+    public enum Distribution {
+        RANDOM, SORTED, NEARLY_SORTED, REVERSED, FEW_UNIQUE, ORGAN_PIPE, SAWTOOTH;
+
+        /**
+         * Generates an input array of the given size.
+         */
+        public int[] generate(int size, Random random) {
+            int[] array = new int[size];
+            switch (this) {
+                case RANDOM:
+                    for (int i = 0; i < size; i++) array[i] = random.nextInt();
+                    break;
+                case SORTED:
+                    for (int i = 0; i < size; i++) array[i] = i;
+                    break;
+                case NEARLY_SORTED:
+                    // Sorted, then 1% of the elements swapped with a random partner
+                    for (int i = 0; i < size; i++) array[i] = i;
+                    for (int k = 0; k < size / 100; k++) {
+                        int i = random.nextInt(size);
+                        int j = random.nextInt(size);
+                        int temp = array[i];
+                        array[i] = array[j];
+                        array[j] = temp;
+                    }
+                    break;
+                case REVERSED:
+                    for (int i = 0; i < size; i++) array[i] = size - i;
+                    break;
+                case FEW_UNIQUE:
+                    for (int i = 0; i < size; i++) array[i] = random.nextInt(16);
+                    break;
+                case ORGAN_PIPE:
+                    for (int i = 0; i < size; i++) array[i] = Math.min(i, size - 1 - i);
+                    break;
+                case SAWTOOTH:
+                    int tooth = Math.max(1, (int) Math.sqrt(size));
+                    for (int i = 0; i < size; i++) array[i] = i % tooth;
+                    break;
+            }
+            return array;
+        }
+
+        /**
+         * Parses a distribution name such as "few-unique" or "FEW_UNIQUE".
+         */
+        public static Distribution parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /**
+     * Result of benchmarking one algorithm on one input.
+     */
+    static class Result {
+        final String algorithm;
+        final int threads; // pool size for parallel sorters, 0 for the default
+        final int k; // k for partial queries, 0 for full sorts
+        final Distribution distribution;
+        final int size;
+        final double[] samples; // milliseconds per sort
+        final double allocatedBytes; // bytes per sort, or -1 if unavailable
+        final long comparisons; // per sort, or -1 if not counted
+
+        Result(String algorithm, int threads, int k, Distribution distribution, int size,
+               double[] samples, double allocatedBytes, long comparisons) {
+            this.algorithm = algorithm;
+            this.threads = threads;
+            this.k = k;
+            this.distribution = distribution;
+            this.size = size;
+            this.samples = samples;
+            this.allocatedBytes = allocatedBytes;
+            this.comparisons = comparisons;
+        }
+
+        double mean() {
+            double sum = 0;
+            for (double s : samples) sum += s;
+            return sum / samples.length;
+        }
+
+        double min() {
+            double min = Double.MAX_VALUE;
+            for (double s : samples) min = Math.min(min, s);
+            return min;
+        }
+
+        double median() {
+            double[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            int mid = sorted.length / 2;
+            return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+        }
+
+        double stdDev() {
+            if (samples.length < 2) return 0;
+            double mean = mean();
+            double sum = 0;
+            for (double s : samples) sum += (s - mean) * (s - mean);
+            return Math.sqrt(sum / (samples.length - 1));
+        }
+    }
+
+    /**
+     * Returns the algorithms covered by the benchmark.
+     * Bogo Sort is left out since it never finishes on real inputs.
+     */
+    static List<Sorter> algorithms() {
+        List<Sorter> sorters = new ArrayList<>();
+        sorters.add(new BubbleSort());
+        sorters.add(new SelectionSort());
+        sorters.add(new InsertionSort());
+        sorters.add(new MergeSort());
+        sorters.add(new ParallelMergeSort());
+        sorters.add(new QuickSort());
+        sorters.add(new ParallelQuickSort());
+        sorters.add(new DualPivotQuickSort());
+        sorters.add(new ThreeWayQuickSort());
+        sorters.add(new HeapSort());
+        sorters.add(new HeapSort(4));
+        sorters.add(new HeapSort(8));
+        sorters.add(new TimSort());
+        sorters.add(new BucketSort());
+        sorters.add(new CountingSort());
+        sorters.add(new RadixSort());
+        sorters.add(new AmericanFlagSort());
+        sorters.add(new ParallelSampleSort());
+        sorters.add(new ParallelCountingSort());
+        if (OffHeapSort.available()) {
+            sorters.add(new OffHeapSort(new QuickSort(), QuickSort::sort));
+            sorters.add(new OffHeapSort(new MergeSort(), MergeSort::sort));
+            sorters.add(new OffHeapSort(new HeapSort(), HeapSort::sort));
+            sorters.add(new OffHeapSort(new RadixSort(), RadixSort::sort));
+        }
+        sorters.add(new AdaptiveSorter());
+        sorters.add(new QuickSort(new ScalarSortKernels()));
+        sorters.add(new MergeSort(new ScalarSortKernels()));
+        sorters.add(new QuickSort(new BranchlessSortKernels()));
+        sorters.add(new MergeSort(new BranchlessSortKernels()));
+        SortKernels vector = SortKernels.vector();
+        if (vector != null) {
+            sorters.add(new QuickSort(vector));
+            sorters.add(new MergeSort(vector));
+        }
+        sorters.add(new JdkSort(false));
+        sorters.add(new JdkSort(true));
+        return sorters;
+    }
+
+    /**
+     * Arrays.sort or Arrays.parallelSort, as a baseline for the other sorters.
+     */
+    static class JdkSort implements Sorter {
+        private final boolean parallel;
+
+        JdkSort(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver v) {
+            if (parallel) {
+                Arrays.parallelSort(array);
+            } else {
+                Arrays.sort(array);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return parallel ? "Arrays.parallelSort" : "Arrays.sort";
+        }
+
+        @Override
+        public String getTimeComplexity() {
+            return "O(n log n)";
+        }
+
+        @Override
+        public String getSpaceComplexity() {
+            return parallel ? "O(n)" : "O(log n)";
+        }
+    }
+
+    /**
+     * Off-heap version of a sorter, for comparison with the on-heap one.
+     * The input is copied into an OffHeapIntArray, sorted there and
+     * copied back; the two bulk copies are part of the measurement.
+     * Only available in the off-heap build.
+     */
+    static class OffHeapSort implements Sorter {
+        private final Sorter onHeap;
+        private final Consumer<LargeIntArray> sorter;
+
+        OffHeapSort(Sorter onHeap, Consumer<LargeIntArray> sorter) {
+            this.onHeap = onHeap;
+            this.sorter = sorter;
+        }
+
+        static boolean available() {
+            try (LargeIntArray probe = LargeIntArray.offHeap(0)) {
+                return probe != null;
+            }
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver v) {
+            try (LargeIntArray offHeap = LargeIntArray.offHeap(array.length)) {
+                offHeap.copyFrom(array, 0, 0, array.length);
+                sorter.accept(offHeap);
+                offHeap.copyTo(0, array, 0, array.length);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return onHeap.getName() + " (off-heap)";
+        }
+
+        @Override
+        public String getTimeComplexity() {
+            return onHeap.getTimeComplexity();
+        }
+
+        @Override
+        public String getSpaceComplexity() {
+            return onHeap.getSpaceComplexity();
+        }
+    }
+
+    /**
+     * Observer that only counts comparisons, i.e. highlight events.
+     */
+    static class CountingObserver implements SortObserver {
+        long comparisons;
+
+        @Override
+        public void highlight(int i, int j) {
+            comparisons++;
+        }
+
+        @Override
+        public void clearHighlight() {
+        }
+
+        @Override
+        public void updateValue(int index, int value) {
+        }
+
+        @Override
+        public void swap(int i, int j) {
+        }
+
+        @Override
+        public void markSorted(int index) {
+        }
+
+        @Override
+        public void markAllSorted() {
+        }
+
+        @Override
+        public void sleep() {
+        }
+    }
+
+    /**
+     * Returns the top-k and selection queries for the given k, plus the
+     * full sorts they are measured against.
+     */
+    static List<Sorter> partialAlgorithms(int k) {
+        List<Sorter> sorters = new ArrayList<>();
+        sorters.add(new PartialSort("Top-K Heap", 0, k, array -> {
+            int[] smallest = HeapSort.smallest(array, k);
+            System.arraycopy(smallest, 0, array, 0, k);
+        }));
+        sorters.add(new PartialSort("Partial Quick Sort", 0, k, array -> QuickSort.partialSort(array, k)));
+        sorters.add(new PartialSort("Quickselect", k - 1, k, array -> QuickSort.select(array, k - 1)));
+        sorters.add(new QuickSort());
+        sorters.add(new JdkSort(false));
+        return sorters;
+    }
+
+    /**
+     * A query that orders only part of the array, benchmarked like a sorter.
+     * Only positions [from, to) of the result are checked: the k smallest
+     * for top-k, the selected element for quickselect.
+     */
+    static class PartialSort implements Sorter {
+        private final String name;
+        private final int from;
+        private final int to;
+        private final Consumer<int[]> query;
+
+        PartialSort(String name, int from, int to, Consumer<int[]> query) {
+            this.name = name;
+            this.from = from;
+            this.to = to;
+            this.query = query;
+        }
+
+        boolean matches(int[] result, int[] expected) {
+            for (int i = from; i < to; i++) {
+                if (result[i] != expected[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void sort(int[] array, SortObserver v) {
+            query.accept(array);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getTimeComplexity() {
+            return "O(n)";
+        }
+
+        @Override
+        public String getSpaceComplexity() {
+            return "O(k)";
+        }
+    }
+
+    /**
+     * Returns the parallel algorithms running in the given pool.
+     */
+    static List<Sorter> parallelAlgorithms(ForkJoinPool pool) {
+        List<Sorter> sorters = new ArrayList<>();
+        sorters.add(new ParallelMergeSort(pool));
+        sorters.add(new ParallelQuickSort(pool));
+        sorters.add(new ParallelSampleSort(pool));
+        sorters.add(new ParallelCountingSort(pool));
+        return sorters;
+    }
+
+    private int[] sizes = {1_000, 10_000, 100_000, 1_000_000};
+    private Distribution[] distributions = Distribution.values();
+    private List<String> algorithmNames = null;
+    private int warmupIterations = 3;
+    private int measuredIterations = 5;
+    private int quadraticLimit = DEFAULT_QUADRATIC_LIMIT;
+    private int[] threadCounts = null;
+    private int partialK = 0;
+    private boolean countComparisons = false;
+    private String outputFile = "sort-benchmark.json";
+    private int nameWidth = 1;
+
+    /**
+     * Runs the benchmark for every selected algorithm, size and distribution.
+     */
+    public List<Result> run() {
+        ForkJoinPool[] pools = new ForkJoinPool[threadCounts == null ? 0 : threadCounts.length];
+        for (int t = 0; t < pools.length; t++) {
+            pools[t] = new ForkJoinPool(threadCounts[t]);
+        }
+
+        nameWidth = nameWidth(pools);
+        List<Result> results = new ArrayList<>();
+        try {
+            for (int size : sizes) {
+                for (Distribution distribution : distributions) {
+                    int[] input = distribution.generate(size, new Random(SEED));
+                    int[] expected = input.clone();
+                    Arrays.sort(expected);
+                    int[] work = new int[size];
+
+                    List<String> parallelNames = new ArrayList<>();
+                    for (Sorter sorter : parallelAlgorithms(ForkJoinPool.commonPool())) {
+                        parallelNames.add(sorter.getName());
+                    }
+
+                    if (partialK > 0) {
+                        for (Sorter sorter : partialAlgorithms(Math.min(partialK, size))) {
+                            benchmark(sorter, 0, distribution, size, input, work, expected, results);
+                        }
+                        continue;
+                    }
+                    for (Sorter sorter : algorithms()) {
+                        // Parallel sorters run per thread count below when --threads is given
+                        if (pools.length > 0 && parallelNames.contains(sorter.getName())) {
+                            continue;
+                        }
+                        benchmark(sorter, 0, distribution, size, input, work, expected, results);
+                    }
+                    for (int t = 0; t < pools.length; t++) {
+                        for (Sorter sorter : parallelAlgorithms(pools[t])) {
+                            benchmark(sorter, threadCounts[t], distribution, size, input, work,
+                                    expected, results);
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (ForkJoinPool pool : pools) {
+                pool.shutdown();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the length of the longest label among the selected sorters,
+     * so the name column fits all of them.
+     */
+    private int nameWidth(ForkJoinPool[] pools) {
+        int width = 1;
+        for (Sorter sorter : partialK > 0 ? partialAlgorithms(partialK) : algorithms()) {
+            if (algorithmNames == null || algorithmNames.contains(sorter.getName())) {
+                width = Math.max(width, sorter.getName().length());
+            }
+        }
+        for (int t = 0; t < pools.length; t++) {
+            for (Sorter sorter : parallelAlgorithms(pools[t])) {
+                if (algorithmNames == null || algorithmNames.contains(sorter.getName())) {
+                    width = Math.max(width, (sorter.getName() + " x" + threadCounts[t]).length());
+                }
+            }
+        }
+        return width;
+    }
+
+    /**
+     * Benchmarks one sorter on one input and adds the result, unless the
+     * sorter is filtered out or too slow for the size.
+     */
+    private void benchmark(Sorter sorter, int threads, Distribution distribution, int size,
+                           int[] input, int[] work, int[] expected, List<Result> results) {
+        if (algorithmNames != null && !algorithmNames.contains(sorter.getName())) {
+            return;
+        }
+        if (size > quadraticLimit && sorter.getTimeComplexity().equals("O(n²)")) {
+            return;
+        }
+
+        String label = threads > 0 ? sorter.getName() + " x" + threads : sorter.getName();
+        double[] samples = new double[measuredIterations];
+        double allocatedBytes;
+        try {
+            allocatedBytes = measure(sorter, input, work, expected, samples);
+        } catch (StackOverflowError | RuntimeException e) {
+            System.out.printf(Locale.ROOT, "%-" + nameWidth + "s %-13s %,12d  failed: %s%n",
+                    label, distribution, size, e);
+            return;
+        }
+        long comparisons = -1;
+        if (countComparisons) {
+            CountingObserver counter = new CountingObserver();
+            System.arraycopy(input, 0, work, 0, size);
+            sorter.sort(work, counter);
+            comparisons = counter.comparisons;
+        }
+        int k = partialK > 0 ? Math.min(partialK, size) : 0;
+        Result result = new Result(sorter.getName(), threads, k, distribution, size, samples,
+                allocatedBytes, comparisons);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-" + nameWidth + "s %-13s %,12d  %12.3f ms/op  (+- %.3f)  %,14.0f B/op%s%n",
+                label, distribution, size, result.mean(), result.stdDev(),
+                result.allocatedBytes,
+                comparisons >= 0 ? String.format(Locale.ROOT, "  %,16d cmp", comparisons) : "");
+    }
+
+    /**
+     * Times one algorithm on one input, filling samples with milliseconds
+     * per sort. The input is copied before every sort and the copy is not
+     * part of the measurement.
+     * @return Average bytes allocated per sort, or -1 if unavailable
+     */
+    private double measure(Sorter sorter, int[] input, int[] work, int[] expected,
+                           double[] samples) {
+        for (int i = 0; i < warmupIterations; i++) {
+            System.arraycopy(input, 0, work, 0, input.length);
+            sorter.sort(work);
+        }
+
+        // Cost of reading the allocation counter itself
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        long allocated = 0;
+        for (int i = 0; i < samples.length; i++) {
+            System.arraycopy(input, 0, work, 0, input.length);
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            sorter.sort(work);
+            long end = System.nanoTime();
+            allocated += allocatedBytes() - bytesBefore - overhead;
+            samples[i] = (end - start) / 1_000_000.0;
+        }
+
+        boolean correct = sorter instanceof PartialSort
+                ? ((PartialSort) sorter).matches(work, expected)
+                : Arrays.equals(work, expected);
+        if (!correct) {
+            throw new IllegalStateException(sorter.getName() + " produced an unsorted result");
+        }
+        return THREADS == null ? -1 : Math.max(0, (double) allocated / samples.length);
+    }
+
+    /**
+     * Prints, for each size, every algorithm's median time summed over the
+     * distributions, fastest first. Medians keep a few slow samples (GC,
+     * JIT) from deciding the ranking at small sizes. Algorithms that did not run on every
+     * distribution are left out.
+     */
+    static void printTotals(List<Result> results, int[] sizes, int distributionCount) {
+        for (int size : sizes) {
+            Map<String, double[]> totals = new LinkedHashMap<>(); // label -> {sum, count}
+            for (Result result : results) {
+                if (result.size != size) continue;
+                String label = result.threads > 0 ? result.algorithm + " x" + result.threads : result.algorithm;
+                double[] total = totals.computeIfAbsent(label, key -> new double[2]);
+                total[0] += result.median();
+                total[1]++;
+            }
+            List<Map.Entry<String, double[]>> complete = new ArrayList<>();
+            for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+                if (entry.getValue()[1] == distributionCount) complete.add(entry);
+            }
+            if (complete.isEmpty()) continue;
+            complete.sort((a, b) -> Double.compare(a.getValue()[0], b.getValue()[0]));
+            int width = 1;
+            for (Map.Entry<String, double[]> entry : complete) {
+                width = Math.max(width, entry.getKey().length());
+            }
+
+            System.out.printf(Locale.ROOT, "%nMixed workload, size %,d (median summed over %d distributions)%n",
+                    size, distributionCount);
+            for (Map.Entry<String, double[]> entry : complete) {
+                System.out.printf(Locale.ROOT, "%-" + width + "s %12.3f ms%n", entry.getKey(), entry.getValue()[0]);
+            }
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     */
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Writes the results as a JSON array, one object per benchmark run.
+     */
+    static void writeJson(List<Result> results, String file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("[");
+            for (int r = 0; r < results.size(); r++) {
+                Result result = results.get(r);
+                out.println("  {");
+                out.println("    \"benchmark\": " + jsonString(result.algorithm) + ",");
+                out.println("    \"params\": { \"size\": " + result.size
+                        + ", \"distribution\": " + jsonString(result.distribution.toString())
+                        + (result.threads > 0 ? ", \"threads\": " + result.threads : "")
+                        + (result.k > 0 ? ", \"k\": " + result.k : "") + " },");
+                out.println("    \"primaryMetric\": {");
+                out.printf(Locale.ROOT, "      \"score\": %.6f,%n", result.mean());
+                out.printf(Locale.ROOT, "      \"scoreError\": %.6f,%n", result.stdDev());
+                out.printf(Locale.ROOT, "      \"min\": %.6f,%n", result.min());
+                out.println("      \"scoreUnit\": \"ms/op\",");
+                StringBuilder samples = new StringBuilder();
+                for (int i = 0; i < result.samples.length; i++) {
+                    if (i > 0) samples.append(", ");
+                    samples.append(String.format(Locale.ROOT, "%.6f", result.samples[i]));
+                }
+                out.println("      \"rawData\": [" + samples + "]");
+                out.println("    },");
+                out.println("    \"secondaryMetrics\": {");
+                out.println("      \"gc.alloc.rate.norm\": {");
+                out.printf(Locale.ROOT, "        \"score\": %.1f,%n", result.allocatedBytes);
+                out.println("        \"scoreUnit\": \"B/op\"");
+                if (result.comparisons >= 0) {
+                    out.println("      },");
+                    out.println("      \"comparisons\": {");
+                    out.println("        \"score\": " + result.comparisons + ",");
+                    out.println("        \"scoreUnit\": \"#/op\"");
+                }
+                out.println("      }");
+                out.println("    }");
+                out.println(r < results.size() - 1 ? "  }," : "  }");
+            }
+            out.println("]");
+        }
+    }
+
+    /**
+     * Returns s as a quoted JSON string, escaping quotes, backslashes and
+     * control characters.
+     */
+    static String jsonString(String s) {
+        StringBuilder quoted = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static int[] parseSizes(String value) {
+        String[] parts = value.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim().replace("_", ""));
+        }
+        return sizes;
+    }
+
+    private static int[] parseThreadCounts(String value) {
+        String[] parts = value.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+        }
+        return counts;
+    }
+
+    private static Distribution[] parseDistributions(String value) {
+        String[] parts = value.split(",");
+        Distribution[] distributions = new Distribution[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            distributions[i] = Distribution.parse(parts[i]);
+        }
+        return distributions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SortBenchmark benchmark = new SortBenchmark();
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--sizes":
+                    benchmark.sizes = parseSizes(value);
+                    break;
+                case "--dists":
+                    benchmark.distributions = parseDistributions(value);
+                    break;
+                case "--algos":
+                    benchmark.algorithmNames = Arrays.asList(value.split("\\s*,\\s*"));
+                    break;
+                case "--warmup":
+                    benchmark.warmupIterations = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    benchmark.measuredIterations = Integer.parseInt(value);
+                    break;
+                case "--quadratic-limit":
+                    benchmark.quadraticLimit = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    benchmark.threadCounts = parseThreadCounts(value);
+                    break;
+                case "--partial":
+                    benchmark.partialK = Integer.parseInt(value);
+                    break;
+                case "--count-comparisons":
+                    benchmark.countComparisons = Boolean.parseBoolean(value);
+                    break;
+                case "--out":
+                    benchmark.outputFile = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        List<Result> results = benchmark.run();
+        printTotals(results, benchmark.sizes, benchmark.distributions.length);
+        writeJson(results, benchmark.outputFile);
+        System.out.println("Results written to " + benchmark.outputFile);
+    }
+}
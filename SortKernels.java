@@ -0,0 +1,52 @@
+/**
+ * Building blocks for the headless kernel variants of Quick Sort and
+ * Merge Sort: a small-block sort, a two-way partition and a merge.
+ * ScalarSortKernels implements them in plain Java. VectorSortKernels, in
+ * vector/, implements them with the incubating Vector API and is only
+ * compiled and loaded in the vector build (see README); everywhere else
+ * vector() returns null and callers stay on the scalar kernels.
+ * Ranges are half-open, [from, to).
+ */
+public interface SortKernels {
+    /**
+     * Largest range sortBlock accepts, and the slack the partition buffer needs.
+     */
+    int BLOCK = 16;
+    
+    /**
+     * Sorts array[from, to), which holds at most BLOCK values.
+     */
+    void sortBlock(int[] array, int from, int to);
+    
+    /**
+     * Moves the values of array[from, to) that are less than pivot to the
+     * front of the range, keeping the rest after them.
+     * @param buffer Scratch space holding at least to - from + BLOCK ints
+     * @return The index of the first value not less than pivot
+     */
+    int partition(int[] array, int from, int to, int pivot, int[] buffer);
+    
+    /**
+     * Merges the sorted ranges array[from, mid) and array[mid, to) in place.
+     * @param buffer Scratch space holding at least mid - from ints
+     */
+    void merge(int[] array, int from, int mid, int to, int[] buffer);
+    
+    /**
+     * Returns a short name for the kernels, e.g. "scalar".
+     */
+    String getName();
+    
+    /**
+     * Returns the Vector API kernels, or null if they were not compiled
+     * in, jdk.incubator.vector is not loaded, or the CPU has no vector
+     * unit of at least 256 bits.
+     */
+    static SortKernels vector() {
+        try {
+            return (SortKernels) Class.forName("VectorSortKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
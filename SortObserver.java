@@ -0,0 +1,48 @@
+/**
+ * Observer notified by sorting algorithms as they run.
+ * The Visualizer animates these events; NoOpObserver ignores them
+ * so sorts can run headless at full speed.
+ */
+public interface SortObserver {
+    /**
+     * Called when two indices are being compared.
+     * @param i First index
+     * @param j Second index, or -1 if only one element is involved
+     */
+    void highlight(int i, int j);
+    
+    /**
+     * Clears all highlights.
+     */
+    void clearHighlight();
+    
+    /**
+     * Called after a value has been written to the array.
+     * @param index The index that was updated
+     * @param value The new value
+     */
+    void updateValue(int index, int value);
+    
+    /**
+     * Called when two elements are swapped.
+     * @param i First index
+     * @param j Second index
+     */
+    void swap(int i, int j);
+    
+    /**
+     * Marks elements as sorted up to the given index.
+     * @param index Index up to which elements are sorted
+     */
+    void markSorted(int index);
+    
+    /**
+     * Marks all elements as sorted.
+     */
+    void markAllSorted();
+    
+    /**
+     * Pauses between steps so the process can be animated.
+     */
+    void sleep();
+}
@@ -4,11 +4,19 @@
  */
 public interface Sorter {
     /**
-     * Sorts the given array and visualizes the process.
+     * Sorts the given array and reports the process to an observer.
      * @param array The array to sort
-     * @param v The visualizer to display the sorting progress
+     * @param v The observer notified of the sorting progress
      */
-    void sort(int[] array, Visualizer v);
+    void sort(int[] array, SortObserver v);
+    
+    /**
+     * Sorts the given array headless, without any visualization.
+     * @param array The array to sort
+     */
+    default void sort(int[] array) {
+        sort(array, NoOpObserver.INSTANCE);
+    }
     
     /**
      * Returns the name of the sorting algorithm.
@@ -48,14 +48,20 @@ public class SortingVisualizer extends JFrame {
             {"Insertion Sort", new Color(241, 196, 15), new InsertionSort()},
             {"Merge Sort", new Color(46, 204, 113), new MergeSort()},
             {"Quick Sort", new Color(26, 188, 156), new QuickSort()},
+            {"Dual-Pivot Quick", new Color(22, 160, 133), new DualPivotQuickSort()},
+            {"3-Way Quick Sort", new Color(39, 174, 96), new ThreeWayQuickSort()},
             {"Heap Sort", new Color(52, 152, 219), new HeapSort()},
             {"Tim Sort", new Color(155, 89, 182), new TimSort()},
             {"Bucket Sort", new Color(52, 73, 94), new BucketSort()},
+            {"Counting Sort", new Color(41, 128, 185), new CountingSort()},
+            {"Radix Sort", new Color(44, 62, 80), new RadixSort()},
+            {"American Flag", new Color(211, 84, 0), new AmericanFlagSort()},
+            {"Adaptive", new Color(127, 140, 141), new AdaptiveSorter()},
             {"Bogo Sort", new Color(192, 57, 43), new BogoSort()}
         };
         
         // Create sort buttons
-        JPanel buttonPanel = new JPanel(new GridLayout(2, 5, 8, 8));
+        JPanel buttonPanel = new JPanel(new GridLayout(0, 6, 8, 8));
         buttonPanel.setBackground(new Color(45, 45, 55));
         
         for (Object[] algo : algorithms) {
@@ -0,0 +1,293 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Incremental sorter for values that arrive in batches.
+ * Each batch is sorted on arrival (Insertion Sort for tiny batches, Tim
+ * Sort otherwise) and pushed as a run onto a stack. Whenever the run
+ * below is no longer than the new one, the two are merged with Tim
+ * Sort's galloping merge, like a binary counter: run lengths halve down
+ * the stack, so there are O(log n) runs and every value is merged
+ * O(log n) times. The set is never re-sorted as a whole.
+ *
+ * With a memory limit, the oldest (longest) runs are spilled to temp
+ * files once more ints than that are held in memory. Spilled runs are
+ * merged on disk the same way, in base 64 instead of 2: every 64 runs
+ * that went through the same number of merges are merged into one, so
+ * no more than 63 runs per level are kept. The sorted view spills the
+ * in-memory run as well and reads everything back through External
+ * Sort's merge passes, holding at most 64 files open.
+ * Time Complexity: O(log n) amortized per value
+ * Space Complexity: O(memory limit) memory, O(n) disk
+ *
+ * Not thread-safe. Close the sorter to delete its temp files.
+ */
+public class StreamingSorter implements Closeable {
+    // Batches up to this size are sorted with Insertion Sort
+    private static final int TINY_BATCH = 32;
+    
+    // Bytes buffered per spilled run while merging
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    
+    // Spilled runs merged at once
+    private static final int DEFAULT_FAN_IN = 64;
+    
+    private static final Sorter INSERTION_SORT = new InsertionSort();
+    private static final Sorter TIM_SORT = new TimSort();
+    
+    private final long memoryLimit;
+    private final int bufferSize;
+    private final int fanIn;
+    private final Path tempDir;
+    private final ExternalSort merger;
+    
+    private final List<int[]> runs = new ArrayList<>(); // oldest first
+    private final List<Path> spilled = new ArrayList<>(); // oldest first
+    private final List<Integer> levels = new ArrayList<>(); // merges each spilled run went through
+    private long inMemory;
+    private long size;
+    
+    /**
+     * Creates a sorter that keeps everything in memory.
+     */
+    public StreamingSorter() {
+        this(Long.MAX_VALUE, null);
+    }
+    
+    /**
+     * Creates a sorter that spills runs to disk.
+     * @param memoryLimit Ints held in memory before the oldest runs are spilled
+     * @param tempDir Directory for spilled runs, or null for the system default
+     */
+    public StreamingSorter(long memoryLimit, Path tempDir) {
+        // Only its merges are used, so the sorter and chunk size do not matter
+        this(memoryLimit, tempDir, DEFAULT_FAN_IN,
+                new ExternalSort(TIM_SORT, Integer.MAX_VALUE, DEFAULT_BUFFER_SIZE, DEFAULT_FAN_IN, tempDir));
+    }
+    
+    /**
+     * Creates a sorter that merges its spilled runs with the given merger,
+     * fanIn at a time.
+     */
+    StreamingSorter(long memoryLimit, Path tempDir, int fanIn, ExternalSort merger) {
+        if (memoryLimit <= 0) {
+            throw new IllegalArgumentException("memoryLimit must be positive: " + memoryLimit);
+        }
+        this.memoryLimit = memoryLimit;
+        this.bufferSize = DEFAULT_BUFFER_SIZE;
+        this.fanIn = fanIn;
+        this.tempDir = tempDir;
+        this.merger = merger;
+    }
+    
+    /**
+     * Adds a batch of values. The array is copied, not retained.
+     */
+    public void add(int[] batch) throws IOException {
+        add(batch, 0, batch.length);
+    }
+    
+    /**
+     * Adds the values in batch[from, to).
+     */
+    public void add(int[] batch, int from, int to) throws IOException {
+        if (from < 0 || from > to || to > batch.length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length "
+                    + batch.length);
+        }
+        if (from == to) {
+            return;
+        }
+        
+        int[] run = Arrays.copyOfRange(batch, from, to);
+        if (run.length <= TINY_BATCH) {
+            INSERTION_SORT.sort(run);
+        } else {
+            TIM_SORT.sort(run);
+        }
+        runs.add(run);
+        inMemory += run.length;
+        size += run.length;
+        
+        // Merge while the run below is no longer than the top one
+        int n = runs.size();
+        while (n > 1 && runs.get(n - 2).length <= runs.get(n - 1).length) {
+            int[] top = runs.remove(--n);
+            runs.set(n - 1, merge(runs.get(n - 1), top));
+        }
+        
+        while (inMemory > memoryLimit && !runs.isEmpty()) {
+            spill(runs.remove(0));
+        }
+    }
+    
+    /**
+     * Returns the number of values added and not yet drained.
+     */
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * Returns every value added so far in ascending order, leaving the
+     * sorter unchanged. Spilled runs are read back, so the result must
+     * fit in memory; use drain(IntConsumer) otherwise.
+     */
+    public int[] toArray() throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException(size + " values do not fit in an array");
+        }
+        consolidate();
+        if (spilled.isEmpty()) {
+            return runs.isEmpty() ? new int[0] : runs.get(0).clone();
+        }
+        
+        int[] result = new int[(int) size];
+        int[] count = new int[1];
+        forEachSorted(value -> result[count[0]++] = value);
+        return result;
+    }
+    
+    /**
+     * Returns every value in ascending order and empties the sorter.
+     */
+    public int[] drain() throws IOException {
+        int[] result = toArray();
+        clear();
+        return result;
+    }
+    
+    /**
+     * Passes every value to sink in ascending order and empties the
+     * sorter. At most 64 spilled runs are read at a time, each through
+     * one buffer.
+     */
+    public void drain(IntConsumer sink) throws IOException {
+        consolidate();
+        forEachSorted(sink);
+        clear();
+    }
+    
+    /**
+     * Deletes any spilled runs.
+     */
+    @Override
+    public void close() throws IOException {
+        clear();
+    }
+    
+    private static int[] merge(int[] left, int[] right) {
+        int[] merged = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, merged, left.length, right.length);
+        TimSort.mergeRuns(merged, left.length);
+        return merged;
+    }
+    
+    /**
+     * Merges the in-memory runs into one, so repeated queries are cheap.
+     */
+    private void consolidate() {
+        for (int n = runs.size(); n > 1; n--) {
+            int[] top = runs.remove(n - 1);
+            runs.set(n - 2, merge(runs.get(n - 2), top));
+        }
+    }
+    
+    private void spill(int[] run) throws IOException {
+        Path file = createTempFile();
+        spilled.add(file);
+        levels.add(0);
+        try (ExternalSort.IntWriter out = new ExternalSort.IntWriter(file, bufferSize)) {
+            out.write(run, 0, run.length);
+        }
+        inMemory -= run.length;
+        
+        // Merge while the last fanIn runs are all of the same level, like a counter in base fanIn
+        int n = spilled.size();
+        while (n >= fanIn && levels.get(n - fanIn).equals(levels.get(n - 1))) {
+            mergeSpilled(n - fanIn, n);
+            n = spilled.size();
+        }
+    }
+    
+    /**
+     * Replaces spilled[from, to) with one run merged from them, a level
+     * above the highest of them. The inputs are deleted only once the
+     * merged run is complete and listed in their place, so whenever this
+     * fails every value is still in exactly one listed run. (If deleting
+     * an input fails, the file is left behind but no longer listed.)
+     */
+    private void mergeSpilled(int from, int to) throws IOException {
+        List<Path> group = spilled.subList(from, to);
+        List<Integer> groupLevels = levels.subList(from, to);
+        int level = Collections.max(groupLevels) + 1;
+        Path merged = createTempFile();
+        try {
+            merger.merge(group, merged);
+        } catch (IOException e) {
+            Files.deleteIfExists(merged);
+            throw e;
+        }
+        
+        List<Path> consumed = new ArrayList<>(group);
+        group.clear();
+        groupLevels.clear();
+        spilled.add(from, merged);
+        levels.add(from, level);
+        for (Path file : consumed) {
+            Files.delete(file);
+        }
+    }
+    
+    private Path createTempFile() throws IOException {
+        return tempDir != null
+                ? Files.createTempFile(tempDir, "stream-run-", ".bin")
+                : Files.createTempFile("stream-run-", ".bin");
+    }
+    
+    /**
+     * Merges the spilled runs and the in-memory run with External Sort's merge.
+     */
+    private void forEachSorted(IntConsumer sink) throws IOException {
+        if (spilled.isEmpty()) {
+            for (int value : runs.isEmpty() ? new int[0] : runs.get(0)) {
+                sink.accept(value);
+            }
+            return;
+        }
+        
+        // Everything else is on disk already, so the in-memory run joins it
+        if (!runs.isEmpty()) {
+            spill(runs.remove(0));
+        }
+        
+        // Passes over groups of fanIn runs, each group replaced by its merge in turn
+        while (spilled.size() > fanIn) {
+            for (int i = 0; i < spilled.size() - 1 && spilled.size() > fanIn; i++) {
+                mergeSpilled(i, Math.min(spilled.size(), i + fanIn));
+            }
+        }
+        merger.merge(spilled, sink::accept);
+    }
+    
+    private void clear() throws IOException {
+        runs.clear();
+        inMemory = 0;
+        size = 0;
+        try {
+            for (Path file : spilled) {
+                Files.deleteIfExists(file);
+            }
+        } finally {
+            spilled.clear();
+            levels.clear();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Three-Way Quick Sort implementation (Bentley-McIlroy partitioning).
+ * Keys equal to the pivot are swapped to the ends of the range while
+ * partitioning and then moved to the middle, so each pass removes every
+ * copy of the pivot from further work. Sorting n copies of one key is linear.
+ * Time Complexity: O(n log n), O(n) with few distinct keys
+ * Space Complexity: O(log n)
+ */
+public class ThreeWayQuickSort implements Sorter {
+    
+    @Override
+    public void sort(int[] array, SortObserver v) {
+        int n = array.length;
+        if (n > 1) {
+            threeWayQuickSort(array, 0, n - 1, 2 * QuickSort.log2(n), v);
+        }
+        v.markAllSorted();
+    }
+    
+    /**
+     * Three-way quick sort of array[low, high]. Recurses into the smaller
+     * side and loops on the larger one, falling back to Heap Sort past the
+     * depth limit like QuickSort does.
+     */
+    private void threeWayQuickSort(int[] array, int low, int high, int depthLimit, SortObserver v) {
+        while (high - low + 1 > QuickSort.INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                HeapSort.heapSort(array, low, high + 1, v);
+                return;
+            }
+            depthLimit--;
+            
+            QuickSort.swap(array, low, QuickSort.choosePivot(array, low, high, v), v);
+            int pivot = array[low];
+            
+            // array[low, p] and array[q, high] hold keys equal to the pivot
+            int i = low;
+            int j = high + 1;
+            int p = low;
+            int q = high + 1;
+            while (true) {
+                do {
+                    i++;
+                    v.highlight(i, low);
+                    v.sleep();
+                } while (i < high && array[i] < pivot);
+                
+                do {
+                    j--;
+                    v.highlight(j, low);
+                    v.sleep();
+                } while (array[j] > pivot);
+                
+                if (i == j && array[i] == pivot) {
+                    QuickSort.swap(array, ++p, i, v);
+                }
+                if (i >= j) {
+                    break;
+                }
+                
+                QuickSort.swap(array, i, j, v);
+                if (array[i] == pivot) {
+                    QuickSort.swap(array, ++p, i, v);
+                }
+                if (array[j] == pivot) {
+                    QuickSort.swap(array, --q, j, v);
+                }
+            }
+            
+            // Move the equal keys from both ends to the middle
+            i = j + 1;
+            for (int k = low; k <= p; k++) {
+                QuickSort.swap(array, k, j--, v);
+            }
+            for (int k = high; k >= q; k--) {
+                QuickSort.swap(array, k, i++, v);
+            }
+            
+            // Now array[low, j] < pivot, array[j + 1, i - 1] == pivot and array[i, high] > pivot
+            if (j - low < high - i) {
+                threeWayQuickSort(array, low, j, depthLimit, v);
+                low = i;
+            } else {
+                threeWayQuickSort(array, i, high, depthLimit, v);
+                high = j;
+            }
+        }
+        QuickSort.insertionSort(array, low, high, v);
+    }
+    
+    @Override
+    public String getName() {
+        return "3-Way Quick Sort";
+    }
+    
+    @Override
+    public String getTimeComplexity() {
+        return "O(n log n)";
+    }
+    
+    @Override
+    public String getSpaceComplexity() {
+        return "O(log n)";
+    }
+}
@@ -1,114 +1,1168 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
 /**
- * Tim Sort implementation (simplified version).
- * Combines Insertion Sort for small runs with Merge Sort for merging.
- * Time Complexity: O(n log n)
+ * Tim Sort implementation.
+ * Finds the natural ascending or descending runs already present in the
+ * input, extends short runs to a computed minimum length with binary
+ * insertion sort, and merges runs from a stack that keeps the merge
+ * pattern balanced. Merges switch to galloping mode when one run keeps
+ * winning, so presorted data is sorted in close to linear time.
+ * Object arrays and lists can be sorted with a Comparator or by a
+ * primitive key.
+ * Time Complexity: O(n log n), O(n) on presorted input
  * Space Complexity: O(n)
  */
 public class TimSort implements Sorter {
-    private static final int MIN_RUN = 32;
+    // Arrays shorter than this are sorted with binary insertion sort alone
+    private static final int MIN_MERGE = 32;
+    
+    // Number of consecutive wins before a merge enters galloping mode
+    private static final int MIN_GALLOP = 7;
+    
+    // Enough pending runs for any int-sized array given the stack invariants
+    private static final int MAX_STACK = 49;
+    
+    // Run stacks are reused per thread so a steady-state sort allocates nothing
+    private static final ThreadLocal<MergeState> STATE = new ThreadLocal<>();
     
     @Override
-    public void sort(int[] array, Visualizer v) {
-        int n = array.length;
-        
-        // Sort individual runs using insertion sort
-        for (int i = 0; i < n; i += MIN_RUN) {
-            insertionSort(array, i, Math.min(i + MIN_RUN - 1, n - 1), v);
+    public void sort(int[] array, SortObserver v) {
+        sort(array, ScratchBuffer.get(array.length / 2), v);
+    }
+    
+    /**
+     * Sorts the array using a caller-supplied scratch buffer.
+     * @param array The array to sort
+     * @param buffer Scratch space holding at least half of the array
+     * @param v The observer notified of the sorting progress
+     */
+    public void sort(int[] array, int[] buffer, SortObserver v) {
+        if (buffer.length < array.length / 2) {
+            throw new IllegalArgumentException("buffer too small: " + buffer.length);
         }
         
-        // Merge runs
-        for (int size = MIN_RUN; size < n; size = 2 * size) {
-            for (int left = 0; left < n; left += 2 * size) {
-                int mid = Math.min(left + size - 1, n - 1);
-                int right = Math.min(left + 2 * size - 1, n - 1);
-                
-                if (mid < right) {
-                    merge(array, left, mid, right, v);
-                }
-            }
+        MergeState state = STATE.get();
+        if (state == null) {
+            state = new MergeState();
+            STATE.set(state);
         }
         
+        state.sort(array, buffer, v);
         v.markAllSorted();
     }
     
     /**
-     * Insertion sort for a portion of the array.
+     * Merges the sorted runs array[0, mid) and array[mid, length) in place
+     * with Tim Sort's galloping merge, without observer events.
+     */
+    static void mergeRuns(int[] array, int mid) {
+        MergeState state = STATE.get();
+        if (state == null) {
+            state = new MergeState();
+            STATE.set(state);
+        }
+        int[] buffer = ScratchBuffer.get(Math.min(mid, array.length - mid));
+        state.merge(array, buffer, mid);
+    }
+    
+    /**
+     * Returns the minimum run length for an array of length n.
+     * Short runs are extended to this length so the number of runs is
+     * close to, but no more than, a power of two.
      */
-    private void insertionSort(int[] array, int left, int right, Visualizer v) {
-        for (int i = left + 1; i <= right; i++) {
-            int key = array[i];
-            int j = i - 1;
+    static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= (n & 1);
+            n >>= 1;
+        }
+        return n + r;
+    }
+    
+    /**
+     * State of one sort: the array, the merge buffer and the stack of
+     * pending runs.
+     */
+    private static class MergeState {
+        private final int[] runBase = new int[MAX_STACK];
+        private final int[] runLen = new int[MAX_STACK];
+        private int stackSize;
+        private int minGallop;
+        
+        private int[] a;
+        private int[] tmp;
+        private SortObserver v;
+        
+        void sort(int[] array, int[] buffer, SortObserver observer) {
+            a = array;
+            tmp = buffer;
+            v = observer;
+            stackSize = 0;
+            minGallop = MIN_GALLOP;
+            try {
+                sortRange(0, array.length);
+            } finally {
+                a = null;
+                tmp = null;
+                v = null;
+            }
+        }
+        
+        void merge(int[] array, int[] buffer, int mid) {
+            a = array;
+            tmp = buffer;
+            v = NoOpObserver.INSTANCE;
+            stackSize = 0;
+            minGallop = MIN_GALLOP;
+            try {
+                if (mid > 0 && mid < array.length) {
+                    pushRun(0, mid);
+                    pushRun(mid, array.length - mid);
+                    mergeAt(0);
+                }
+            } finally {
+                a = null;
+                tmp = null;
+                v = null;
+            }
+        }
+        
+        private void sortRange(int lo, int hi) {
+            int remaining = hi - lo;
+            if (remaining < 2) {
+                return;
+            }
             
-            v.highlight(i, -1);
+            // Small arrays need no merging
+            if (remaining < MIN_MERGE) {
+                int initRunLen = countRunAndMakeAscending(lo, hi);
+                binarySort(lo, hi, lo + initRunLen);
+                return;
+            }
+            
+            int minRun = minRunLength(remaining);
+            do {
+                // Find the next natural run, extending it to minRun if it is short
+                int runLength = countRunAndMakeAscending(lo, hi);
+                if (runLength < minRun) {
+                    int force = Math.min(remaining, minRun);
+                    binarySort(lo, lo + force, lo + runLength);
+                    runLength = force;
+                }
+                
+                // Push the run and merge while the stack invariants are broken
+                pushRun(lo, runLength);
+                mergeCollapse();
+                
+                lo += runLength;
+                remaining -= runLength;
+            } while (remaining != 0);
+            
+            mergeForceCollapse();
+        }
+        
+        /**
+         * Returns the length of the run starting at lo, reversing it first
+         * if it is strictly descending.
+         */
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) {
+                return 1;
+            }
+            
+            v.highlight(lo, runHi);
             v.sleep();
             
-            while (j >= left && array[j] > key) {
-                v.highlight(j, j + 1);
-                array[j + 1] = array[j];
-                v.updateValue(j + 1, array[j]);
+            if (a[runHi++] < a[lo]) {
+                while (runHi < hi && a[runHi] < a[runHi - 1]) {
+                    v.highlight(runHi - 1, runHi);
+                    runHi++;
+                }
+                reverseRange(lo, runHi);
+            } else {
+                while (runHi < hi && a[runHi] >= a[runHi - 1]) {
+                    v.highlight(runHi - 1, runHi);
+                    runHi++;
+                }
+            }
+            
+            return runHi - lo;
+        }
+        
+        /**
+         * Reverses a[lo, hi).
+         */
+        private void reverseRange(int lo, int hi) {
+            hi--;
+            while (lo < hi) {
+                v.swap(lo, hi);
+                int temp = a[lo];
+                a[lo++] = a[hi];
+                a[hi--] = temp;
                 v.sleep();
-                j--;
+            }
+        }
+        
+        /**
+         * Binary insertion sort of a[lo, hi), where a[lo, start) is already sorted.
+         */
+        private void binarySort(int lo, int hi, int start) {
+            if (start == lo) {
+                start++;
             }
             
-            array[j + 1] = key;
-            v.updateValue(j + 1, key);
+            for (; start < hi; start++) {
+                int pivot = a[start];
+                int left = lo;
+                int right = start;
+                
+                // Find the insertion point, after any equal elements
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    v.highlight(start, mid);
+                    if (pivot < a[mid]) {
+                        right = mid;
+                    } else {
+                        left = mid + 1;
+                    }
+                }
+                v.sleep();
+                
+                int n = start - left;
+                System.arraycopy(a, left, a, left + 1, n);
+                a[left] = pivot;
+                report(left, n + 1);
+            }
+        }
+        
+        private void pushRun(int base, int length) {
+            runBase[stackSize] = base;
+            runLen[stackSize] = length;
+            stackSize++;
+        }
+        
+        /**
+         * Merges runs until the stack invariants hold again:
+         * runLen[i - 2] > runLen[i - 1] + runLen[i] and runLen[i - 1] > runLen[i].
+         */
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                        || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                    if (runLen[n - 1] < runLen[n + 1]) {
+                        n--;
+                    }
+                } else if (runLen[n] > runLen[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+        
+        /**
+         * Merges all remaining runs once the whole array has been scanned.
+         */
+        private void mergeForceCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+                mergeAt(n);
+            }
+        }
+        
+        /**
+         * Merges the runs at stack positions i and i + 1.
+         */
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int len1 = runLen[i];
+            int base2 = runBase[i + 1];
+            int len2 = runLen[i + 1];
+            
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+            
+            // Elements of run 1 already before run 2 stay where they are
+            int k = gallopRight(a[base2], a, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) {
+                return;
+            }
+            
+            // Elements of run 2 already after run 1 stay where they are
+            len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+            if (len2 == 0) {
+                return;
+            }
+            
+            // Copy the shorter run to the buffer
+            if (len1 <= len2) {
+                mergeLo(base1, len1, base2, len2);
+            } else {
+                mergeHi(base1, len1, base2, len2);
+            }
+        }
+        
+        /**
+         * Merges two adjacent runs from left to right, copying the first
+         * (shorter) run to the buffer.
+         */
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            System.arraycopy(a, base1, tmp, 0, len1);
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+            
+            // The first element of run 2 is known to go first
+            write(dest++, a[cursor2++]);
+            if (--len2 == 0) {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+                report(dest, len1);
+                return;
+            }
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+                report(dest, len2 + 1);
+                return;
+            }
+            
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                
+                // One element at a time until one run starts winning consistently
+                do {
+                    v.highlight(dest, cursor2);
+                    if (a[cursor2] < tmp[cursor1]) {
+                        write(dest++, a[cursor2++]);
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        write(dest++, tmp[cursor1++]);
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < minGallop);
+                
+                // Gallop: copy whole blocks found by exponential search
+                do {
+                    count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(tmp, cursor1, a, dest, count1);
+                        report(dest, count1);
+                        dest += count1;
+                        cursor1 += count1;
+                        len1 -= count1;
+                        if (len1 <= 1) {
+                            break outer;
+                        }
+                    }
+                    write(dest++, a[cursor2++]);
+                    if (--len2 == 0) {
+                        break outer;
+                    }
+                    
+                    count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, cursor2, a, dest, count2);
+                        report(dest, count2);
+                        dest += count2;
+                        cursor2 += count2;
+                        len2 -= count2;
+                        if (len2 == 0) {
+                            break outer;
+                        }
+                    }
+                    write(dest++, tmp[cursor1++]);
+                    if (--len1 == 1) {
+                        break outer;
+                    }
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                
+                // Galloping stopped paying off, make it harder to re-enter
+                if (minGallop < 0) {
+                    minGallop = 0;
+                }
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(1, minGallop);
+            
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+                report(dest, len2 + 1);
+            } else {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+                report(dest, len1);
+            }
+            v.clearHighlight();
+        }
+        
+        /**
+         * Merges two adjacent runs from right to left, copying the second
+         * (shorter) run to the buffer.
+         */
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            System.arraycopy(a, base2, tmp, 0, len2);
+            int cursor1 = base1 + len1 - 1;
+            int cursor2 = len2 - 1;
+            int dest = base2 + len2 - 1;
+            
+            // The last element of run 1 is known to go last
+            write(dest--, a[cursor1--]);
+            if (--len1 == 0) {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+                report(dest - (len2 - 1), len2);
+                return;
+            }
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+                report(dest, len1 + 1);
+                return;
+            }
+            
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                
+                // One element at a time until one run starts winning consistently
+                do {
+                    v.highlight(cursor1, dest);
+                    if (tmp[cursor2] < a[cursor1]) {
+                        write(dest--, a[cursor1--]);
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        write(dest--, tmp[cursor2--]);
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < minGallop);
+                
+                // Gallop: copy whole blocks found by exponential search
+                do {
+                    count1 = len1 - gallopRight(tmp[cursor2], a, base1, len1, len1 - 1);
+                    if (count1 != 0) {
+                        dest -= count1;
+                        cursor1 -= count1;
+                        len1 -= count1;
+                        System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                        report(dest + 1, count1);
+                        if (len1 == 0) {
+                            break outer;
+                        }
+                    }
+                    write(dest--, tmp[cursor2--]);
+                    if (--len2 == 1) {
+                        break outer;
+                    }
+                    
+                    count2 = len2 - gallopLeft(a[cursor1], tmp, 0, len2, len2 - 1);
+                    if (count2 != 0) {
+                        dest -= count2;
+                        cursor2 -= count2;
+                        len2 -= count2;
+                        System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                        report(dest + 1, count2);
+                        if (len2 <= 1) {
+                            break outer;
+                        }
+                    }
+                    write(dest--, a[cursor1--]);
+                    if (--len1 == 0) {
+                        break outer;
+                    }
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                
+                // Galloping stopped paying off, make it harder to re-enter
+                if (minGallop < 0) {
+                    minGallop = 0;
+                }
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(1, minGallop);
+            
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+                report(dest, len1 + 1);
+            } else {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+                report(dest - (len2 - 1), len2);
+            }
+            v.clearHighlight();
+        }
+        
+        /**
+         * Writes one merged value and reports it to the observer.
+         */
+        private void write(int index, int value) {
+            a[index] = value;
+            v.updateValue(index, value);
+            v.sleep();
+        }
+        
+        /**
+         * Reports a block of values written with System.arraycopy.
+         */
+        private void report(int from, int length) {
+            for (int i = from; i < from + length; i++) {
+                v.updateValue(i, a[i]);
+            }
+            if (length > 0) {
+                v.sleep();
+            }
         }
     }
     
     /**
-     * Merges two sorted runs.
+     * Returns the index in array[base, base + len) where key would be
+     * inserted before any equal elements, searching outward from hint.
      */
-    private void merge(int[] array, int left, int mid, int right, Visualizer v) {
-        int len1 = mid - left + 1;
-        int len2 = right - mid;
+    static int gallopLeft(int key, int[] array, int base, int len, int hint) {
+        int lastOfs = 0;
+        int ofs = 1;
+        if (key > array[base + hint]) {
+            // Gallop right until array[base + hint + lastOfs] < key <= array[base + hint + ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && key > array[base + hint + ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        } else {
+            // Gallop left until array[base + hint - ofs] < key <= array[base + hint - lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && key <= array[base + hint - ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int temp = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - temp;
+        }
         
-        int[] leftArr = new int[len1];
-        int[] rightArr = new int[len2];
+        // Binary search in array[base + lastOfs + 1, base + ofs)
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (key > array[base + m]) {
+                lastOfs = m + 1;
+            } else {
+                ofs = m;
+            }
+        }
+        return ofs;
+    }
+    
+    /**
+     * Returns the index in array[base, base + len) where key would be
+     * inserted after any equal elements, searching outward from hint.
+     */
+    static int gallopRight(int key, int[] array, int base, int len, int hint) {
+        int lastOfs = 0;
+        int ofs = 1;
+        if (key < array[base + hint]) {
+            // Gallop left until array[base + hint - ofs] <= key < array[base + hint - lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && key < array[base + hint - ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int temp = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - temp;
+        } else {
+            // Gallop right until array[base + hint + lastOfs] <= key < array[base + hint + ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && key >= array[base + hint + ofs]) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        }
         
-        for (int i = 0; i < len1; i++) {
-            leftArr[i] = array[left + i];
+        // Binary search in array[base + lastOfs + 1, base + ofs)
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (key < array[base + m]) {
+                ofs = m;
+            } else {
+                lastOfs = m + 1;
+            }
         }
-        for (int i = 0; i < len2; i++) {
-            rightArr[i] = array[mid + 1 + i];
+        return ofs;
+    }
+    
+    /**
+     * Returns the permutation that sorts keys, so that keys[order[0]],
+     * keys[order[1]], ... is ascending. The keys are not modified.
+     * Equal keys keep their input order.
+     */
+    public static int[] argsort(int[] keys) {
+        return Permutations.argsort(keys, LongSorts::timSort);
+    }
+    
+    /**
+     * Sorts keys and moves the elements of every payload array (row ids,
+     * offsets, ...) along with their keys. Use argsort and
+     * Permutations.apply for payloads of other types.
+     */
+    public static void coSort(int[] keys, int[]... payloads) {
+        Permutations.coSort(keys, payloads, LongSorts::timSort);
+    }
+    
+    /**
+     * Sorts the array with the comparator. Equal elements keep their order.
+     */
+    public static <T> void sort(T[] array, Comparator<? super T> c) {
+        if (array.length > 1) {
+            new ComparatorState<>(array, c).sort();
         }
+    }
+    
+    /**
+     * Sorts the list with the comparator. Equal elements keep their order.
+     */
+    public static <T> void sort(List<T> list, Comparator<? super T> c) {
+        Permutations.sortList(list, array -> sort(array, c));
+    }
+    
+    /**
+     * Sorts the array by an int key, extracted once per element. Equal
+     * keys keep their order. Much faster than a comparator on large arrays,
+     * since the sort itself only compares primitives.
+     */
+    public static <T> void sortByInt(T[] array, ToIntFunction<? super T> key) {
+        Permutations.sortByInt(array, key, LongSorts::timSort);
+    }
+    
+    /**
+     * Sorts the array by a long key, extracted once per element. Equal
+     * keys keep their order.
+     */
+    public static <T> void sortByLong(T[] array, ToLongFunction<? super T> key) {
+        Permutations.sortByLong(array, key);
+    }
+    
+    /**
+     * MergeState for object arrays ordered by a comparator. Same algorithm,
+     * without observer events; the buffer starts small and grows on demand.
+     */
+    private static final class ComparatorState<T> {
+        private static final int INITIAL_TMP_LENGTH = 256;
         
-        int i = 0, j = 0, k = left;
+        private final T[] a;
+        private final Comparator<? super T> c;
+        private T[] tmp;
+        private int minGallop = MIN_GALLOP;
+        private final int[] runBase = new int[MAX_STACK];
+        private final int[] runLen = new int[MAX_STACK];
+        private int stackSize;
         
-        while (i < len1 && j < len2) {
-            v.highlight(left + i, mid + 1 + j);
-            v.sleep();
+        @SuppressWarnings("unchecked")
+        ComparatorState(T[] a, Comparator<? super T> c) {
+            this.a = a;
+            this.c = c;
+            this.tmp = (T[]) new Object[Math.min(INITIAL_TMP_LENGTH, a.length >>> 1)];
+        }
+        
+        void sort() {
+            int lo = 0;
+            int remaining = a.length;
+            int minRun = minRunLength(remaining);
+            do {
+                int runLength = countRunAndMakeAscending(lo, a.length);
+                if (runLength < minRun) {
+                    int force = Math.min(remaining, minRun);
+                    binarySort(lo, lo + force, lo + runLength);
+                    runLength = force;
+                }
+                
+                runBase[stackSize] = lo;
+                runLen[stackSize] = runLength;
+                stackSize++;
+                mergeCollapse();
+                
+                lo += runLength;
+                remaining -= runLength;
+            } while (remaining != 0);
             
-            if (leftArr[i] <= rightArr[j]) {
-                array[k] = leftArr[i];
-                v.updateValue(k, leftArr[i]);
-                i++;
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+                mergeAt(n);
+            }
+        }
+        
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) {
+                return 1;
+            }
+            if (c.compare(a[runHi++], a[lo]) < 0) {
+                while (runHi < hi && c.compare(a[runHi], a[runHi - 1]) < 0) {
+                    runHi++;
+                }
+                for (int i = lo, j = runHi - 1; i < j; i++, j--) {
+                    T temp = a[i];
+                    a[i] = a[j];
+                    a[j] = temp;
+                }
             } else {
-                array[k] = rightArr[j];
-                v.updateValue(k, rightArr[j]);
-                j++;
+                while (runHi < hi && c.compare(a[runHi], a[runHi - 1]) >= 0) {
+                    runHi++;
+                }
             }
-            k++;
+            return runHi - lo;
         }
         
-        while (i < len1) {
-            array[k] = leftArr[i];
-            v.updateValue(k, leftArr[i]);
-            v.highlight(k, -1);
-            v.sleep();
-            i++;
-            k++;
+        private void binarySort(int lo, int hi, int start) {
+            for (; start < hi; start++) {
+                T pivot = a[start];
+                int left = lo;
+                int right = start;
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    if (c.compare(pivot, a[mid]) < 0) {
+                        right = mid;
+                    } else {
+                        left = mid + 1;
+                    }
+                }
+                System.arraycopy(a, left, a, left + 1, start - left);
+                a[left] = pivot;
+            }
         }
         
-        while (j < len2) {
-            array[k] = rightArr[j];
-            v.updateValue(k, rightArr[j]);
-            v.highlight(k, -1);
-            v.sleep();
-            j++;
-            k++;
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int n = stackSize - 2;
+                if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1]
+                        || n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                    if (runLen[n - 1] < runLen[n + 1]) {
+                        n--;
+                    }
+                } else if (runLen[n] > runLen[n + 1]) {
+                    break;
+                }
+                mergeAt(n);
+            }
+        }
+        
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int len1 = runLen[i];
+            int base2 = runBase[i + 1];
+            int len2 = runLen[i + 1];
+            
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLen[i + 1] = runLen[i + 2];
+            }
+            stackSize--;
+            
+            int k = gallopRight(a[base2], a, base1, len1, 0);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) {
+                return;
+            }
+            len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1);
+            if (len2 == 0) {
+                return;
+            }
+            
+            if (len1 <= len2) {
+                mergeLo(base1, len1, base2, len2);
+            } else {
+                mergeHi(base1, len1, base2, len2);
+            }
+        }
+        
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            T[] a = this.a;
+            T[] tmp = ensureCapacity(len1);
+            System.arraycopy(a, base1, tmp, 0, len1);
+            int cursor1 = 0;
+            int cursor2 = base2;
+            int dest = base1;
+            
+            a[dest++] = a[cursor2++];
+            if (--len2 == 0) {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+                return;
+            }
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+                return;
+            }
+            
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                
+                do {
+                    if (c.compare(a[cursor2], tmp[cursor1]) < 0) {
+                        a[dest++] = a[cursor2++];
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        a[dest++] = tmp[cursor1++];
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < minGallop);
+                
+                do {
+                    count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0);
+                    if (count1 != 0) {
+                        System.arraycopy(tmp, cursor1, a, dest, count1);
+                        dest += count1;
+                        cursor1 += count1;
+                        len1 -= count1;
+                        if (len1 <= 1) {
+                            break outer;
+                        }
+                    }
+                    a[dest++] = a[cursor2++];
+                    if (--len2 == 0) {
+                        break outer;
+                    }
+                    
+                    count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0);
+                    if (count2 != 0) {
+                        System.arraycopy(a, cursor2, a, dest, count2);
+                        dest += count2;
+                        cursor2 += count2;
+                        len2 -= count2;
+                        if (len2 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest++] = tmp[cursor1++];
+                    if (--len1 == 1) {
+                        break outer;
+                    }
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                if (minGallop < 0) {
+                    minGallop = 0;
+                }
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(1, minGallop);
+            
+            if (len1 == 1) {
+                System.arraycopy(a, cursor2, a, dest, len2);
+                a[dest + len2] = tmp[cursor1];
+            } else if (len1 == 0) {
+                throw new IllegalArgumentException("Comparison method violates its general contract");
+            } else {
+                System.arraycopy(tmp, cursor1, a, dest, len1);
+            }
+        }
+        
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            T[] a = this.a;
+            T[] tmp = ensureCapacity(len2);
+            System.arraycopy(a, base2, tmp, 0, len2);
+            int cursor1 = base1 + len1 - 1;
+            int cursor2 = len2 - 1;
+            int dest = base2 + len2 - 1;
+            
+            a[dest--] = a[cursor1--];
+            if (--len1 == 0) {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+                return;
+            }
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+                return;
+            }
+            
+            int minGallop = this.minGallop;
+            outer:
+            while (true) {
+                int count1 = 0;
+                int count2 = 0;
+                
+                do {
+                    if (c.compare(tmp[cursor2], a[cursor1]) < 0) {
+                        a[dest--] = a[cursor1--];
+                        count1++;
+                        count2 = 0;
+                        if (--len1 == 0) {
+                            break outer;
+                        }
+                    } else {
+                        a[dest--] = tmp[cursor2--];
+                        count2++;
+                        count1 = 0;
+                        if (--len2 == 1) {
+                            break outer;
+                        }
+                    }
+                } while ((count1 | count2) < minGallop);
+                
+                do {
+                    count1 = len1 - gallopRight(tmp[cursor2], a, base1, len1, len1 - 1);
+                    if (count1 != 0) {
+                        dest -= count1;
+                        cursor1 -= count1;
+                        len1 -= count1;
+                        System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                        if (len1 == 0) {
+                            break outer;
+                        }
+                    }
+                    a[dest--] = tmp[cursor2--];
+                    if (--len2 == 1) {
+                        break outer;
+                    }
+                    
+                    count2 = len2 - gallopLeft(a[cursor1], tmp, 0, len2, len2 - 1);
+                    if (count2 != 0) {
+                        dest -= count2;
+                        cursor2 -= count2;
+                        len2 -= count2;
+                        System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                        if (len2 <= 1) {
+                            break outer;
+                        }
+                    }
+                    a[dest--] = a[cursor1--];
+                    if (--len1 == 0) {
+                        break outer;
+                    }
+                    minGallop--;
+                } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+                if (minGallop < 0) {
+                    minGallop = 0;
+                }
+                minGallop += 2;
+            }
+            this.minGallop = Math.max(1, minGallop);
+            
+            if (len2 == 1) {
+                dest -= len1;
+                cursor1 -= len1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+                a[dest] = tmp[cursor2];
+            } else if (len2 == 0) {
+                throw new IllegalArgumentException("Comparison method violates its general contract");
+            } else {
+                System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private T[] ensureCapacity(int minCapacity) {
+            if (tmp.length < minCapacity) {
+                tmp = (T[]) new Object[Math.max(minCapacity, Math.min(a.length >>> 1, tmp.length * 2))];
+            }
+            return tmp;
+        }
+        
+        /**
+         * Comparator version of TimSort.gallopLeft.
+         */
+        private int gallopLeft(T key, T[] array, int base, int len, int hint) {
+            int lastOfs = 0;
+            int ofs = 1;
+            if (c.compare(key, array[base + hint]) > 0) {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && c.compare(key, array[base + hint + ofs]) > 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                lastOfs += hint;
+                ofs += hint;
+            } else {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && c.compare(key, array[base + hint - ofs]) <= 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                int temp = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - temp;
+            }
+            
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (c.compare(key, array[base + m]) > 0) {
+                    lastOfs = m + 1;
+                } else {
+                    ofs = m;
+                }
+            }
+            return ofs;
         }
         
-        v.clearHighlight();
+        /**
+         * Comparator version of TimSort.gallopRight.
+         */
+        private int gallopRight(T key, T[] array, int base, int len, int hint) {
+            int lastOfs = 0;
+            int ofs = 1;
+            if (c.compare(key, array[base + hint]) < 0) {
+                int maxOfs = hint + 1;
+                while (ofs < maxOfs && c.compare(key, array[base + hint - ofs]) < 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                int temp = lastOfs;
+                lastOfs = hint - ofs;
+                ofs = hint - temp;
+            } else {
+                int maxOfs = len - hint;
+                while (ofs < maxOfs && c.compare(key, array[base + hint + ofs]) >= 0) {
+                    lastOfs = ofs;
+                    ofs = (ofs << 1) + 1;
+                    if (ofs <= 0) {
+                        ofs = maxOfs;
+                    }
+                }
+                if (ofs > maxOfs) {
+                    ofs = maxOfs;
+                }
+                lastOfs += hint;
+                ofs += hint;
+            }
+            
+            lastOfs++;
+            while (lastOfs < ofs) {
+                int m = lastOfs + ((ofs - lastOfs) >>> 1);
+                if (c.compare(key, array[base + m]) < 0) {
+                    ofs = m;
+                } else {
+                    lastOfs = m + 1;
+                }
+            }
+            return ofs;
+        }
+    }
+    
+    /*
+     * Primitive specializations, generated from PrimitiveSorts.template.
+     * Doubles and floats sort like Arrays.sort: -0.0 before 0.0, NaN last.
+     */
+    public static void sort(long[] array) {
+        LongSorts.timSort(array);
+    }
+    
+    public static void sort(double[] array) {
+        DoubleSorts.timSort(array);
+    }
+    
+    public static void sort(float[] array) {
+        FloatSorts.timSort(array);
+    }
+    
+    public static void sort(short[] array) {
+        ShortSorts.timSort(array);
+    }
+    
+    public static void sort(char[] array) {
+        CharSorts.timSort(array);
     }
     
     @Override
@@ -126,4 +1180,3 @@ public class TimSort implements Sorter {
         return "O(n)";
     }
 }
-
@@ -0,0 +1,89 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Keeps the k smallest ints of a stream.
+ * The kept values form a max-heap (the same layout as HeapSort's), so
+ * the largest of them is at the root: a new value either loses to the
+ * root in one comparison or replaces it and is sifted down. Memory
+ * stays at k ints however long the stream is.
+ * Time Complexity: O(n log k)
+ * Space Complexity: O(k)
+ */
+public class TopK {
+    private final int[] heap;
+    private int size;
+    
+    /**
+     * Creates an empty top-k heap.
+     * @param k Number of smallest values to keep
+     */
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.heap = new int[k];
+    }
+    
+    /**
+     * Offers a value, keeping it if it is among the k smallest so far.
+     */
+    public void add(int value) {
+        if (size < heap.length) {
+            siftUp(size++, value);
+        } else if (size > 0 && value < heap[0]) {
+            HeapSort.siftDown(heap, 0, size, 0, value);
+        }
+    }
+    
+    /**
+     * Offers every value of the array.
+     */
+    public void addAll(int[] values) {
+        for (int value : values) {
+            add(value);
+        }
+    }
+    
+    /**
+     * Returns the number of values kept, at most k.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the largest value kept: once k values have been seen, values
+     * at or above it can be skipped.
+     */
+    public int max() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return heap[0];
+    }
+    
+    /**
+     * Returns the kept values in ascending order.
+     */
+    public int[] toSortedArray() {
+        int[] result = Arrays.copyOf(heap, size);
+        HeapSort.heapSort(result, 0, size, NoOpObserver.INSTANCE);
+        return result;
+    }
+    
+    /**
+     * Places value at index i and moves it up past smaller parents.
+     */
+    private void siftUp(int i, int value) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heap[parent] >= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+}
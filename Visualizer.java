@@ -5,7 +5,7 @@ import java.awt.*;
  * A JPanel that visualizes an array of integers as histogram bars.
  * Provides animation capabilities for sorting algorithm visualization.
  */
-public class Visualizer extends JPanel {
+public class Visualizer extends JPanel implements SortObserver {
     private int[] array;
     private int highlightIndex1 = -1;
     private int highlightIndex2 = -1;
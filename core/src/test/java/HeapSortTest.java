@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HeapSortTest {
+    @Test
+    void siblingGroupsStartOnAMultipleOfTheArity() {
+        int n = HeapSort.ALIGNMENT_THRESHOLD;
+        for (int arity : new int[] {4, 8, 16}) {
+            for (int from = 0; from < 20; from++) {
+                int start = from + HeapSort.alignmentSkip(from, n, arity);
+                // 4 header ints, then the first group of children at start + 1
+                assertEquals(0, (4 + start + 1) % arity, "arity " + arity + ", from " + from);
+            }
+        }
+        assertEquals(0, HeapSort.alignmentSkip(0, n, 2));
+        assertEquals(0, HeapSort.alignmentSkip(0, n, 3));
+        assertEquals(0, HeapSort.alignmentSkip(0, n - 1, 4));
+    }
+    
+    @Test
+    void sortsLargeArraysWithTheSkippedValuesMergedBack() {
+        Random random = new Random(42);
+        for (int arity : new int[] {3, 4, 8}) {
+            int[] array = random.ints(HeapSort.ALIGNMENT_THRESHOLD + 1000, 0, 1000).toArray();
+            int[] expected = array.clone();
+            Arrays.sort(expected);
+            
+            new HeapSort(arity).sort(array, NoOpObserver.INSTANCE);
+            assertArrayEquals(expected, array, "arity " + arity);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.IntBuffer;
+import org.junit.jupiter.api.Test;
+
+class SegmentedIntArrayTest {
+    @Test
+    void segmentsOfABufferNearTheIntLimit() {
+        // The largest IntBuffer: eight segments, the last one a single int short
+        long length = Integer.MAX_VALUE;
+        assertEquals(8, SegmentedIntArray.segmentCount(length));
+        
+        long end = 0;
+        for (int s = 0; s < 8; s++) {
+            assertEquals(end, SegmentedIntArray.segmentStart(s));
+            int size = SegmentedIntArray.segmentLength(length, s);
+            assertEquals(s < 7 ? SegmentedIntArray.SEGMENT_SIZE : SegmentedIntArray.SEGMENT_SIZE - 1, size);
+            end += size;
+        }
+        assertEquals(length, end);
+    }
+    
+    @Test
+    void segmentsOfExactAndEmptyLengths() {
+        assertEquals(1, SegmentedIntArray.segmentCount(0));
+        assertEquals(0, SegmentedIntArray.segmentLength(0, 0));
+        assertEquals(1, SegmentedIntArray.segmentCount(SegmentedIntArray.SEGMENT_SIZE));
+        assertEquals(2, SegmentedIntArray.segmentCount(SegmentedIntArray.SEGMENT_SIZE + 1L));
+        assertEquals(1, SegmentedIntArray.segmentLength(SegmentedIntArray.SEGMENT_SIZE + 1L, 1));
+    }
+    
+    @Test
+    void wrapSortsBetweenPositionAndLimit() {
+        IntBuffer buffer = IntBuffer.wrap(new int[] {9, 5, 3, 8, 1, 7, 0});
+        buffer.position(1).limit(6);
+        QuickSort.sort(buffer);
+        
+        assertEquals(1, buffer.position());
+        assertEquals(IntBuffer.wrap(new int[] {9, 1, 3, 5, 7, 8, 0}), buffer.clear());
+    }
+}
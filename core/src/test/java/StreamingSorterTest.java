@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StreamingSorterTest {
+    private static final int FAN_IN = 4;
+    
+    /**
+     * Merger whose merges into a file start failing once armed.
+     */
+    static class FailingMerger extends ExternalSort {
+        int mergesUntilFailure = -1; // negative while disarmed
+        
+        FailingMerger(Path tempDir) {
+            super(new TimSort(), Integer.MAX_VALUE, 1 << 16, FAN_IN, tempDir);
+        }
+        
+        @Override
+        void merge(List<Path> runs, Path output) throws IOException {
+            if (mergesUntilFailure == 0) {
+                throw new IOException("Injected failure merging into " + output);
+            }
+            if (mergesUntilFailure > 0) {
+                mergesUntilFailure--;
+            }
+            super.merge(runs, output);
+        }
+    }
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void failedMergePassKeepsEveryValue() throws IOException {
+        FailingMerger merger = new FailingMerger(tempDir);
+        int[] values = new Random(42).ints(126).toArray();
+        try (StreamingSorter sorter = new StreamingSorter(1, tempDir, FAN_IN, merger)) {
+            // 63 spilled runs of two values, 333 in base 4: three runs on each of three levels
+            for (int value : values) {
+                sorter.add(new int[] {value});
+            }
+            assertEquals(9, fileCount());
+            
+            // The first pass merges runs 0-3, then fails on the second group, runs 1-4 of the six left
+            merger.mergesUntilFailure = 1;
+            assertThrows(IOException.class, sorter::toArray);
+            assertEquals(6, fileCount());
+            
+            merger.mergesUntilFailure = -1;
+            int[] expected = values.clone();
+            Arrays.sort(expected);
+            assertArrayEquals(expected, sorter.toArray());
+        }
+        assertEquals(0, fileCount());
+    }
+    
+    @Test
+    void spilledRunsMergeIntoTheSortedView() throws IOException {
+        int[] values = new Random(7).ints(10_000, 0, 1000).toArray();
+        try (StreamingSorter sorter = new StreamingSorter(100, tempDir, FAN_IN, new FailingMerger(tempDir))) {
+            for (int i = 0; i < values.length; i += 37) {
+                sorter.add(values, i, Math.min(values.length, i + 37));
+            }
+            int[] expected = values.clone();
+            Arrays.sort(expected);
+            assertArrayEquals(expected, sorter.drain());
+            assertEquals(0, sorter.size());
+        }
+    }
+    
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package sorting.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Quick Sort and Merge Sort on the branchless kernels against the same
+ * sorts on the scalar kernels, on random and presorted input. The
+ * branchless partition and merge should cut branch misses on random
+ * input, where the scalar kernels mispredict about half their
+ * comparisons, and cost a little on presorted input, where those
+ * branches were predicted anyway.
+ *
+ * Branch misses need Linux perf and JMH's perfnorm profiler, which
+ * divides the hardware counters by the number of operations:
+ *
+ *   java -jar jmh/target/benchmarks.jar BranchlessKernelBench -prof perfnorm
+ *
+ * or main(), which adds the profiler and prints time and branch-misses
+ * per sort next to each other. Further arguments are passed to JMH.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BranchlessKernelBench {
+    @Param({"Quick Sort", "Merge Sort"})
+    public String algorithm;
+
+    @Param({"scalar", "branchless"})
+    public String kernels;
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"random", "sorted"})
+    public String distribution;
+
+    private Consumer<int[]> sort;
+    private int[] input;
+    private int[] work;
+
+    @Setup
+    public void setup() {
+        sort = Sorters.byName(algorithm + " (" + kernels + " kernels)");
+        input = Sorters.input(distribution, size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.accept(work);
+        return work;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(BranchlessKernelBench.class.getName())
+                .addProfiler(LinuxPerfNormProfiler.class)
+                .build();
+
+        System.out.printf("%-12s %-12s %-8s %12s  %12s  %15s%n",
+                "algorithm", "kernels", "input", "size", "us/op", "branch-misses/op");
+        for (RunResult run : new Runner(options).run()) {
+            BenchmarkParams params = run.getParams();
+            Result<?> misses = run.getSecondaryResults().get("branch-misses");
+            System.out.printf("%-12s %-12s %-8s %,12d  %12.1f  %15s%n", params.getParam("algorithm"),
+                    params.getParam("kernels"), params.getParam("distribution"),
+                    Integer.parseInt(params.getParam("size")), run.getPrimaryResult().getScore(),
+                    misses == null ? "n/a" : String.format("%,.0f", misses.getScore()));
+        }
+    }
+}
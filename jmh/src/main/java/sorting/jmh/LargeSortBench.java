@@ -0,0 +1,62 @@
+package sorting.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SortBench at 10M and 100M values, where a single sort takes up to tens
+ * of seconds. Each iteration times one sort (single-shot) instead of
+ * averaging over a second, with fewer iterations and one fork, so the
+ * whole grid still finishes in hours rather than days. The forks get a
+ * 4 GB heap: at 100M values the input, the work array and a merge or
+ * radix buffer take 400 MB each.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class LargeSortBench {
+    @Param({"Merge Sort", "Parallel Merge Sort", "Quick Sort", "Parallel Quick Sort",
+            "Dual-Pivot Quick Sort", "3-Way Quick Sort", "Heap Sort", "Heap Sort (4-ary)",
+            "Heap Sort (8-ary)", "Tim Sort", "Bucket Sort", "Counting Sort", "Radix Sort",
+            "American Flag Sort", "Parallel Sample Sort", "Parallel Counting Sort",
+            "Adaptive Sort", "Arrays.sort", "Arrays.parallelSort"})
+    public String sorter;
+
+    @Param({"10000000", "100000000"})
+    public int size;
+
+    @Param({"random", "sorted", "nearly-sorted", "reversed", "few-unique", "organ-pipe", "sawtooth"})
+    public String distribution;
+
+    private Consumer<int[]> sort;
+    private int[] input;
+    private int[] work;
+
+    @Setup
+    public void setup() {
+        sort = Sorters.byName(sorter);
+        input = Sorters.input(distribution, size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.accept(work);
+        return work;
+    }
+}
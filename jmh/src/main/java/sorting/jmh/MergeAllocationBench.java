@@ -0,0 +1,117 @@
+package sorting.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Checks that Merge Sort and Tim Sort merge without allocating.
+ * Both merge through the calling thread's ScratchBuffer, which is sized
+ * by the first sort of a fork, so every later sort should allocate
+ * nothing. Run main() rather than the plain JMH launcher: it adds the GC
+ * profiler and fails when any combination reports a gc.alloc.rate.norm
+ * of an array header or more, beyond what JMH itself allocates.
+ *
+ *   java -cp jmh/target/benchmarks.jar sorting.jmh.MergeAllocationBench
+ *
+ * Further arguments are passed to JMH, e.g. -p size=1000.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MergeAllocationBench {
+    // The smallest allocation a sort could make: one empty array
+    static final double ARRAY_HEADER_BYTES = 16;
+
+    /*
+     * JMH's own bookkeeping allocates about a kilobyte per iteration,
+     * whatever the benchmark does. Spread over the tens of thousands of
+     * sorts of 1,000 values that is a fraction of a byte each, but a
+     * second holds only a dozen sorts of 1,000,000 values.
+     */
+    static final double HARNESS_BYTES_PER_ITERATION = 4096;
+
+    @Param({"Merge Sort", "Tim Sort", "Merge Sort (scalar kernels)"})
+    public String sorter;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    @Param({"random", "sorted", "organ-pipe"})
+    public String distribution;
+
+    private Consumer<int[]> sort;
+    private int[] input;
+    private int[] work;
+
+    @Setup
+    public void setup() {
+        sort = Sorters.byName(sorter);
+        input = Sorters.input(distribution, size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.accept(work);
+        return work;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(MergeAllocationBench.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        int failures = 0;
+        for (RunResult run : new Runner(options).run()) {
+            Result<?> allocated = run.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (allocated == null) {
+                throw new IllegalStateException("The GC profiler reported no gc.alloc.rate.norm");
+            }
+
+            // Average time mode: the score is the time per sort in the run's time unit
+            BenchmarkParams params = run.getParams();
+            double opsPerIteration = params.getMeasurement().getTime().convertTo(params.getTimeUnit())
+                    / run.getPrimaryResult().getScore();
+            double limit = ARRAY_HEADER_BYTES + HARNESS_BYTES_PER_ITERATION / opsPerIteration;
+
+            System.out.printf("%-28s %-12s %,10d  %10.3f B/op (limit %.3f)%n", params.getParam("sorter"),
+                    params.getParam("distribution"), Integer.parseInt(params.getParam("size")),
+                    allocated.getScore(), limit);
+            if (allocated.getScore() >= limit) {
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.err.println(failures + " combinations allocate while sorting");
+            System.exit(1);
+        }
+        System.out.println("No combination allocates while sorting");
+    }
+}
@@ -0,0 +1,54 @@
+package sorting.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SortBench for the O(n²) sorts, at sizes they finish in.
+ * Bogo Sort is left out since it never finishes on real inputs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class QuadraticSortBench {
+    @Param({"Bubble Sort", "Selection Sort", "Insertion Sort"})
+    public String sorter;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"random", "sorted", "nearly-sorted", "reversed", "few-unique", "organ-pipe", "sawtooth"})
+    public String distribution;
+
+    private Consumer<int[]> sort;
+    private int[] input;
+    private int[] work;
+
+    @Setup
+    public void setup() {
+        sort = Sorters.byName(sorter);
+        input = Sorters.input(distribution, size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.accept(work);
+        return work;
+    }
+}
@@ -0,0 +1,68 @@
+package sorting.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Average time of one sort, for every O(n log n) and linear-time sorter
+ * over each size and input distribution. Every combination runs in its
+ * own forked JVMs, so the JIT's profile of one sorter never shapes the
+ * code compiled for the next.
+ *
+ * Each operation copies the input into a work array allocated once per
+ * trial and sorts it there; the copy is part of the time but is linear
+ * and small next to the sort. The sorted array is returned so JMH
+ * consumes it.
+ *
+ * The quadratic sorts have their own sizes in QuadraticSortBench, and
+ * 10M and 100M values are timed one sort at a time in LargeSortBench.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class SortBench {
+    @Param({"Merge Sort", "Parallel Merge Sort", "Quick Sort", "Parallel Quick Sort",
+            "Dual-Pivot Quick Sort", "3-Way Quick Sort", "Heap Sort", "Heap Sort (4-ary)",
+            "Heap Sort (8-ary)", "Tim Sort", "Bucket Sort", "Counting Sort", "Radix Sort",
+            "American Flag Sort", "Parallel Sample Sort", "Parallel Counting Sort",
+            "Adaptive Sort", "Arrays.sort", "Arrays.parallelSort"})
+    public String sorter;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"random", "sorted", "nearly-sorted", "reversed", "few-unique", "organ-pipe", "sawtooth"})
+    public String distribution;
+
+    private Consumer<int[]> sort;
+    private int[] input;
+    private int[] work;
+
+    @Setup
+    public void setup() {
+        sort = Sorters.byName(sorter);
+        input = Sorters.input(distribution, size);
+        work = new int[size];
+    }
+
+    @Benchmark
+    public int[] sort() {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.accept(work);
+        return work;
+    }
+}
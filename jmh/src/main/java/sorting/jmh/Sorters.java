@@ -0,0 +1,74 @@
+package sorting.jmh;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Gives the benchmarks access to the sorters and input distributions.
+ * Those live in the default package, which a class in a named package
+ * cannot import, and JMH only accepts benchmarks in a named package. So
+ * they are looked up by name once per trial, through SortBenchmark's
+ * list of algorithms, and each sorter is bound to a Consumer with
+ * LambdaMetafactory: the benchmark loop then makes the same interface
+ * call as sorter.sort(array), with no reflection per operation.
+ */
+final class Sorters {
+    // Same seed as SortBenchmark, so both see the same inputs
+    private static final long SEED = 42;
+
+    private Sorters() {
+    }
+
+    /**
+     * Returns the headless sort of the sorter with the given name, as
+     * listed by SortBenchmark, e.g. "Quick Sort" or "Heap Sort (4-ary)".
+     */
+    @SuppressWarnings("unchecked")
+    static Consumer<int[]> byName(String name) {
+        try {
+            Class<?> sorterClass = Class.forName("Sorter");
+            Method getName = sorterClass.getMethod("getName");
+            Method algorithms = Class.forName("SortBenchmark").getDeclaredMethod("algorithms");
+            algorithms.setAccessible(true);
+            for (Object sorter : (List<?>) algorithms.invoke(null)) {
+                if (getName.invoke(sorter).equals(name)) {
+                    MethodHandles.Lookup lookup = MethodHandles.lookup();
+                    MethodHandle sort = lookup.findVirtual(sorterClass, "sort",
+                            MethodType.methodType(void.class, int[].class));
+                    CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                            MethodType.methodType(Consumer.class, sorterClass),
+                            MethodType.methodType(void.class, Object.class),
+                            sort, MethodType.methodType(void.class, int[].class));
+                    return (Consumer<int[]>) site.getTarget().invoke(sorter);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot load sorter " + name, e);
+        }
+        throw new IllegalArgumentException("Unknown sorter: " + name);
+    }
+
+    /**
+     * Generates an input with one of SortBenchmark's distributions, e.g.
+     * "random" or "few-unique".
+     */
+    static int[] input(String distribution, int size) {
+        try {
+            Class<?> distributions = Class.forName("SortBenchmark$Distribution");
+            Object parsed = distributions.getMethod("parse", String.class).invoke(null, distribution);
+            return (int[]) distributions.getMethod("generate", int.class, Random.class)
+                    .invoke(parsed, size, new Random(SEED));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot generate " + distribution + " input", e);
+        }
+    }
+}
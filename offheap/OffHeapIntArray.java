@@ -0,0 +1,155 @@
+import java.lang.reflect.Field;
+import sun.misc.Unsafe;
+
+/**
+ * Array of ints in native memory, indexed by long.
+ * It can hold more than 2^31 elements, is invisible to the garbage
+ * collector, and is freed explicitly with close() instead of waiting for
+ * a GC. Elements are stored in native byte order and start as zero.
+ * QuickSort, MergeSort, HeapSort and RadixSort sort it in place as a
+ * LargeIntArray.
+ *
+ * Not thread-safe. Accessing the array after close() throws
+ * IllegalStateException.
+ */
+public final class OffHeapIntArray implements LargeIntArray {
+    private static final Unsafe UNSAFE = unsafe();
+    private static final long INT_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(int[].class);
+    
+    private final long length;
+    private long address; // 0 once freed
+    
+    /**
+     * Allocates a zeroed off-heap array.
+     * @param length Number of ints
+     */
+    public OffHeapIntArray(long length) {
+        if (length < 0 || length > Long.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        long bytes = Math.max(1, length * Integer.BYTES);
+        this.length = length;
+        this.address = UNSAFE.allocateMemory(bytes);
+        UNSAFE.setMemory(address, bytes, (byte) 0);
+    }
+    
+    /**
+     * Returns an off-heap copy of the given array.
+     */
+    public static OffHeapIntArray copyOf(int[] array) {
+        OffHeapIntArray copy = new OffHeapIntArray(array.length);
+        copy.copyFrom(array, 0, 0, array.length);
+        return copy;
+    }
+    
+    @Override
+    public long length() {
+        return length;
+    }
+    
+    @Override
+    public int get(long index) {
+        checkIndex(index);
+        return UNSAFE.getInt(address + index * Integer.BYTES);
+    }
+    
+    @Override
+    public void set(long index, int value) {
+        checkIndex(index);
+        UNSAFE.putInt(address + index * Integer.BYTES, value);
+    }
+    
+    /**
+     * Allocates a zeroed off-heap array, so merge and radix buffers stay
+     * off the heap too.
+     */
+    @Override
+    public OffHeapIntArray newArray(long length) {
+        return new OffHeapIntArray(length);
+    }
+    
+    @Override
+    public void copyFrom(int[] src, int srcPos, long destIndex, int count) {
+        checkRange(destIndex, count);
+        if (srcPos < 0 || count < 0 || srcPos > src.length - count) {
+            throw new IndexOutOfBoundsException("src[" + srcPos + ", " + srcPos + " + " + count + ")");
+        }
+        UNSAFE.copyMemory(src, INT_ARRAY_OFFSET + (long) srcPos * Integer.BYTES,
+                null, address + destIndex * Integer.BYTES, (long) count * Integer.BYTES);
+    }
+    
+    @Override
+    public void copyTo(long srcIndex, int[] dest, int destPos, int count) {
+        checkRange(srcIndex, count);
+        if (destPos < 0 || count < 0 || destPos > dest.length - count) {
+            throw new IndexOutOfBoundsException("dest[" + destPos + ", " + destPos + " + " + count + ")");
+        }
+        UNSAFE.copyMemory(null, address + srcIndex * Integer.BYTES,
+                dest, INT_ARRAY_OFFSET + (long) destPos * Integer.BYTES, (long) count * Integer.BYTES);
+    }
+    
+    /**
+     * Copies with one bulk copy when dest is off-heap as well.
+     */
+    @Override
+    public void copyTo(long srcIndex, LargeIntArray dest, long destIndex, long count) {
+        if (dest instanceof OffHeapIntArray) {
+            copy(this, srcIndex, (OffHeapIntArray) dest, destIndex, count);
+        } else {
+            LargeIntArray.super.copyTo(srcIndex, dest, destIndex, count);
+        }
+    }
+    
+    /**
+     * Copies ints between off-heap arrays, like System.arraycopy.
+     * Overlapping ranges of the same array are handled correctly.
+     */
+    public static void copy(OffHeapIntArray src, long srcIndex, OffHeapIntArray dest, long destIndex, long count) {
+        src.checkRange(srcIndex, count);
+        dest.checkRange(destIndex, count);
+        UNSAFE.copyMemory(src.address + srcIndex * Integer.BYTES,
+                dest.address + destIndex * Integer.BYTES, count * Integer.BYTES);
+    }
+    
+    private void checkOpen() {
+        if (address == 0) {
+            throw new IllegalStateException("Off-heap array has been freed");
+        }
+    }
+    
+    private void checkIndex(long index) {
+        checkOpen();
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+    }
+    
+    private void checkRange(long from, long count) {
+        checkOpen();
+        if (from < 0 || count < 0 || from > length - count) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + from + " + " + count
+                    + ") out of bounds for length " + length);
+        }
+    }
+    
+    /**
+     * Frees the native memory. Calling close() again has no effect.
+     */
+    @Override
+    public void close() {
+        if (address != 0) {
+            UNSAFE.freeMemory(address);
+            address = 0;
+        }
+    }
+    
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Sort kernels on the incubating Vector API (JDK 16+), eight ints per
+ * 256-bit vector.
+ * - sortBlock runs a bitonic sorting network on one vector (up to 8
+ *   values) or on two vectors merged by a bitonic merge (up to 16),
+ *   padding short blocks with Integer.MAX_VALUE.
+ * - partition compares a whole vector against the pivot and left-packs
+ *   the lanes below it, and separately the others, with a permutation
+ *   looked up from the comparison mask. JDK 17 has no compress(), so
+ *   this table stands in for a compress-store.
+ * - merge keeps the eight largest values seen so far in a register,
+ *   merges them with the next vector of whichever run has the smaller
+ *   head, and stores the eight smallest of the sixteen.
+ * Masked loads and stores and VectorMask.toLong() are not intrinsics in
+ * JDK 17 and allocate on every call, so short blocks are loaded whole
+ * and blended, and the comparison mask is turned into bits by a lane sum.
+ * Vectors are boxed wherever C2 stops inlining, so the 16-value network
+ * is split into steps that pass their vectors through the array. C2
+ * still gives up inlining part of the merge step, which allocates about
+ * 200 bytes per block of more than 8 values, yet such a block is sorted
+ * about four times faster than by insertion sort.
+ * Compiled separately with --add-modules jdk.incubator.vector; see README.
+ */
+public class VectorSortKernels implements SortKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+    private static final int LANES = 8;
+    
+    // Entry m (LANES ints from m * LANES) lists the lanes set in mask m, then the others
+    private static final int[] PACK = packTable();
+    
+    private static final IntVector IOTA = IntVector.zero(SPECIES).addIndex(1);
+    private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1).lanewise(VectorOperators.LSHL, IOTA);
+    private static final IntVector ZERO = IntVector.zero(SPECIES);
+    
+    private static final VectorShuffle<Integer> REVERSE = VectorShuffle.fromOp(SPECIES, i -> LANES - 1 - i);
+    private static final VectorShuffle<Integer> SWAP_1 = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorShuffle<Integer> SWAP_2 = VectorShuffle.fromOp(SPECIES, i -> i ^ 2);
+    private static final VectorShuffle<Integer> SWAP_4 = VectorShuffle.fromOp(SPECIES, i -> i ^ 4);
+    
+    // Lanes taking the larger value of each compare-exchange in a sorting network stage
+    private static final VectorMask<Integer> SORT_2_1 = upperLanes(2, 1);
+    private static final VectorMask<Integer> SORT_4_2 = upperLanes(4, 2);
+    private static final VectorMask<Integer> SORT_4_1 = upperLanes(4, 1);
+    private static final VectorMask<Integer> MERGE_4 = upperLanes(LANES, 4);
+    private static final VectorMask<Integer> MERGE_2 = upperLanes(LANES, 2);
+    private static final VectorMask<Integer> MERGE_1 = upperLanes(LANES, 1);
+    
+    private static final SortKernels SCALAR = new ScalarSortKernels();
+    
+    /**
+     * Fails if the CPU would emulate 256-bit vectors instead of running them.
+     */
+    public VectorSortKernels() {
+        if (IntVector.SPECIES_PREFERRED.vectorBitSize() < SPECIES.vectorBitSize()) {
+            throw new UnsupportedOperationException("No 256-bit vector unit: "
+                    + IntVector.SPECIES_PREFERRED.vectorBitSize() + " bits");
+        }
+    }
+    
+    @Override
+    public void sortBlock(int[] array, int from, int to) {
+        int n = to - from;
+        if (n < 2) {
+            return;
+        }
+        
+        // Lanes past to are loaded and written back unchanged, so they must exist
+        int width = n <= LANES ? LANES : 2 * LANES;
+        if (from > array.length - width) {
+            SCALAR.sortBlock(array, from, to);
+            return;
+        }
+        
+        if (n <= LANES) {
+            sortLanes(array, from, n);
+            return;
+        }
+        sortLanes(array, from, LANES);
+        sortLanes(array, from + LANES, n - LANES);
+        mergeLanes(array, from, n - LANES);
+    }
+    
+    /**
+     * Sorts the first n values of the vector at array[from], leaving the other lanes as they were.
+     */
+    private static void sortLanes(int[] array, int from, int n) {
+        VectorMask<Integer> valid = IOTA.lt(n);
+        IntVector block = IntVector.fromArray(SPECIES, array, from);
+        IntVector padding = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        sort(padding.blend(block, valid)).blend(block, valid.not()).intoArray(array, from);
+    }
+    
+    /**
+     * Merges a sorted vector at array[from] with the sorted first n values of the next one.
+     */
+    private static void mergeLanes(int[] array, int from, int n) {
+        VectorMask<Integer> valid = IOTA.lt(n);
+        IntVector a = IntVector.fromArray(SPECIES, array, from);
+        IntVector tail = IntVector.fromArray(SPECIES, array, from + LANES);
+        IntVector padding = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector reversed = padding.blend(tail, valid).rearrange(REVERSE);
+        clean(a.min(reversed)).intoArray(array, from);
+        clean(a.max(reversed)).blend(tail, valid.not()).intoArray(array, from + LANES);
+    }
+    
+    @Override
+    public int partition(int[] array, int from, int to, int pivot, int[] buffer) {
+        IntVector pivots = IntVector.broadcast(SPECIES, pivot);
+        int low = from;
+        int high = 0;
+        int i = from;
+        
+        // The store at low only covers lanes already loaded, since low <= i
+        for (; i <= to - LANES; i += LANES) {
+            IntVector values = IntVector.fromArray(SPECIES, array, i);
+            int below = ZERO.blend(LANE_BITS, values.lt(pivots)).reduceLanes(VectorOperators.ADD);
+            values.rearrange(IntVector.fromArray(SPECIES, PACK, below * LANES).toShuffle()).intoArray(array, low);
+            values.rearrange(IntVector.fromArray(SPECIES, PACK, (below ^ 0xFF) * LANES).toShuffle())
+                    .intoArray(buffer, high);
+            int count = Integer.bitCount(below);
+            low += count;
+            high += LANES - count;
+        }
+        for (; i < to; i++) {
+            int value = array[i];
+            if (value < pivot) {
+                array[low++] = value;
+            } else {
+                buffer[high++] = value;
+            }
+        }
+        System.arraycopy(buffer, 0, array, low, high);
+        return low;
+    }
+    
+    @Override
+    public void merge(int[] array, int from, int mid, int to, int[] buffer) {
+        int n1 = mid - from;
+        if (n1 < LANES || to - mid < LANES) {
+            SCALAR.merge(array, from, mid, to, buffer);
+            return;
+        }
+        System.arraycopy(array, from, buffer, 0, n1);
+        
+        // Every store ends at or before j, so the right run is read before it is overwritten
+        IntVector next = IntVector.fromArray(SPECIES, buffer, 0);
+        IntVector high = IntVector.fromArray(SPECIES, array, mid);
+        int i = LANES, j = mid + LANES, k = from;
+        while (true) {
+            IntVector reversed = high.rearrange(REVERSE);
+            clean(next.min(reversed)).intoArray(array, k);
+            high = clean(next.max(reversed));
+            k += LANES;
+            
+            // Continue with the run whose head is smaller, while it has a full vector left
+            if (i < n1 && (j == to || buffer[i] <= array[j])) {
+                if (i > n1 - LANES) {
+                    break;
+                }
+                next = IntVector.fromArray(SPECIES, buffer, i);
+                i += LANES;
+            } else if (j < to && j <= to - LANES) {
+                next = IntVector.fromArray(SPECIES, array, j);
+                j += LANES;
+            } else {
+                break;
+            }
+        }
+        
+        // Park the held vector in the consumed part of the buffer and finish three-way
+        int t = i - LANES;
+        int tEnd = i;
+        high.intoArray(buffer, t);
+        while (t < tEnd || i < n1) {
+            boolean parked = t < tEnd && (i == n1 || buffer[t] <= buffer[i]);
+            int value = parked ? buffer[t] : buffer[i];
+            if (j < to && array[j] < value) {
+                array[k++] = array[j++];
+            } else {
+                array[k++] = value;
+                if (parked) {
+                    t++;
+                } else {
+                    i++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Bitonic sorting network on one vector.
+     */
+    private static IntVector sort(IntVector v) {
+        v = exchange(v, SWAP_1, SORT_2_1);
+        v = exchange(v, SWAP_2, SORT_4_2);
+        v = exchange(v, SWAP_1, SORT_4_1);
+        return clean(v);
+    }
+    
+    /**
+     * Sorts a bitonic vector (ascending then descending) in three stages.
+     */
+    private static IntVector clean(IntVector v) {
+        v = exchange(v, SWAP_4, MERGE_4);
+        v = exchange(v, SWAP_2, MERGE_2);
+        return exchange(v, SWAP_1, MERGE_1);
+    }
+    
+    /**
+     * Compare-exchanges every lane with its partner; lanes in upper keep the larger value.
+     */
+    private static IntVector exchange(IntVector v, VectorShuffle<Integer> partner, VectorMask<Integer> upper) {
+        IntVector swapped = v.rearrange(partner);
+        return v.min(swapped).blend(v.max(swapped), upper);
+    }
+    
+    /**
+     * Lanes that keep the larger value at distance j within ascending and
+     * descending sequences of length k, which alternate.
+     */
+    private static VectorMask<Integer> upperLanes(int k, int j) {
+        long bits = 0;
+        for (int lane = 0; lane < LANES; lane++) {
+            if (((lane & j) != 0) != ((lane & k) != 0)) {
+                bits |= 1L << lane;
+            }
+        }
+        return VectorMask.fromLong(SPECIES, bits);
+    }
+    
+    private static int[] packTable() {
+        int[] table = new int[(1 << LANES) * LANES];
+        for (int mask = 0; mask < 1 << LANES; mask++) {
+            int k = mask * LANES;
+            for (int lane = 0; lane < LANES; lane++) {
+                if ((mask & 1 << lane) != 0) {
+                    table[k++] = lane;
+                }
+            }
+            for (int lane = 0; lane < LANES; lane++) {
+                if ((mask & 1 << lane) == 0) {
+                    table[k++] = lane;
+                }
+            }
+        }
+        return table;
+    }
+    
+    @Override
+    public String getName() {
+        return "vector";
+    }
+}